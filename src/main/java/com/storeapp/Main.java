@@ -1,5 +1,8 @@
 package com.storeapp;
 
+import com.storeapp.analytics.AnalyticsEngine;
+import com.storeapp.dao.ExpiryScheduler;
+import com.storeapp.db.Database;
 import com.storeapp.util.SceneUtil;
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -10,9 +13,17 @@ public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) {
+        // Seed the dashboard figures in the background while the user logs in.
+        AnalyticsEngine.shared();
+        ExpiryScheduler.start();
         SceneUtil.switchScene(primaryStage, "/fxml/login.fxml", APP_TITLE);
     }
 
+    @Override
+    public void stop() {
+        Database.closeConnection();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,324 @@
+package com.storeapp.analytics;
+
+import com.storeapp.dao.AnalyticsDAO;
+import com.storeapp.dao.CategoryUnits;
+import com.storeapp.dao.DaoExecutor;
+import com.storeapp.dao.ProductDAO;
+import com.storeapp.dao.SaleEvent;
+import com.storeapp.dao.SaleEvents;
+import com.storeapp.dao.SalesTotals;
+import com.storeapp.db.Database;
+import com.storeapp.model.Product;
+import com.storeapp.model.Sale;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Dashboard figures kept current from {@link SaleEvents} instead of being recomputed per
+ * visit. It is seeded once from the daily rollup, then every committed sale or deletion
+ * adjusts a handful of {@link LongAdder}s, so tills never contend on a lock for the totals.
+ * Reading a {@link #snapshot()} is O(1) while nothing has changed; after a change it costs one
+ * pass over the per-category counters. Best-sellers come from a fixed-size
+ * {@link BestSellerTracker} rather than a sort over every product, and nothing is kept per
+ * product: the names of the ranked products and the category of a sale that does not carry
+ * one are read from the {@link com.storeapp.dao.ProductCatalog} when needed.
+ *
+ * <p>"Today" rolls over at local midnight, both lazily on the next event or read and from a
+ * timer so an idle dashboard still resets. Seeded units count towards each product's current
+ * category, later ones towards its category at the time of the sale.
+ */
+public final class AnalyticsEngine {
+
+    private static final Object SHARED_LOCK = new Object();
+    private static final int SEED_ATTEMPTS = 3;
+
+    private static CompletableFuture<AnalyticsEngine> shared;
+
+    private final Clock clock;
+    private final LongAdder totalSales = new LongAdder();
+    private final LongAdder totalRevenueCents = new LongAdder();
+    private final AtomicReference<Day> today;
+    private final Map<String, LongAdder> categoryUnits = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final ProductDAO productDAO = new ProductDAO();
+    private final int bestSellerCapacity;
+    // Replaced by each seed attempt, which streams into a fresh tracker.
+    private volatile BestSellerTracker bestSellers;
+    private final Object seedLock = new Object();
+    private final Consumer<SaleEvent> saleListener = this::onSale;
+
+    // Events that arrive while the engine is being seeded; null once it is live.
+    private volatile List<SaleEvent> pending = new ArrayList<>();
+    private volatile Cached cached;
+
+    AnalyticsEngine(Clock clock, int bestSellerCapacity) {
+        this.clock = clock;
+        this.bestSellerCapacity = bestSellerCapacity;
+        this.bestSellers = new BestSellerTracker(bestSellerCapacity);
+        this.today = new AtomicReference<>(new Day(LocalDate.now(clock)));
+    }
+
+    /**
+     * The application-wide engine. The first call subscribes it to sale events and seeds it on
+     * a background thread; the future completes once it is live. A failed seed is not cached.
+     */
+    public static CompletableFuture<AnalyticsEngine> shared() {
+        synchronized (SHARED_LOCK) {
+            if (shared == null || shared.isCompletedExceptionally()) {
+                shared = DaoExecutor.supply(() -> {
+                    AnalyticsEngine engine = new AnalyticsEngine(Clock.systemDefaultZone(),
+                            Database.getConfig().getBestSellerCapacity());
+                    SaleEvents.subscribe(engine.saleListener);
+                    try {
+                        engine.seed(new AnalyticsDAO());
+                    } catch (SQLException | RuntimeException e) {
+                        SaleEvents.unsubscribe(engine.saleListener);
+                        throw e;
+                    }
+                    engine.startDayRollover();
+                    return engine;
+                });
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * Loads the totals from the database while buffering concurrent events. Buffered additions
+     * are replayed if the snapshot could not have seen them (their id is newer). A buffered
+     * deletion of an older sale is ambiguous, since it may already be reflected, so the snapshot
+     * is retaken in that case.
+     */
+    void seed(AnalyticsDAO analyticsDAO) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            synchronized (seedLock) {
+                pending = new ArrayList<>();
+            }
+            LocalDate day = currentDay().date;
+            // Per-product rows go straight into the bounded summaries; none are held.
+            BestSellerTracker seeded = new BestSellerTracker(bestSellerCapacity);
+            SalesTotals totals = analyticsDAO.getSalesTotals(day, day,
+                    day.minusDays(BestSellerWindow.MAX_DAYS - 1), seeded::recordAllTime,
+                    units -> seeded.recordDay(day, units.day(), units.productId(), units.units()));
+            synchronized (seedLock) {
+                boolean ambiguous = pending.stream().anyMatch(event ->
+                        event.type() == SaleEvent.Type.DELETED && event.sale().getId() <= totals.lastSaleId());
+                if (ambiguous && attempt < SEED_ATTEMPTS) {
+                    continue;
+                }
+                install(totals, seeded, day);
+                for (SaleEvent event : pending) {
+                    if (event.sale().getId() > totals.lastSaleId()) {
+                        apply(event);
+                    }
+                }
+                pending = null;
+            }
+            changed();
+            return;
+        }
+    }
+
+    private void install(SalesTotals totals, BestSellerTracker seededBestSellers, LocalDate day) {
+        Day seeded = new Day(day);
+        totalSales.add(totals.totalSales());
+        totalRevenueCents.add(toCents(totals.totalRevenue()));
+        seeded.sales.add(totals.periodSales());
+        seeded.revenueCents.add(toCents(totals.periodRevenue()));
+        for (CategoryUnits category : totals.categories()) {
+            if (category.category() != null) {
+                categoryUnits.computeIfAbsent(category.category(), c -> new LongAdder()).add(category.units());
+            }
+        }
+        bestSellers = seededBestSellers;
+        today.set(seeded);
+    }
+
+    private void onSale(SaleEvent event) {
+        if (pending != null) {
+            synchronized (seedLock) {
+                if (pending != null) {
+                    pending.add(event);
+                    return;
+                }
+            }
+        }
+        apply(event);
+        changed();
+    }
+
+    private void apply(SaleEvent event) {
+        Sale sale = event.sale();
+        int sign = event.type() == SaleEvent.Type.ADDED ? 1 : -1;
+        long cents = toCents(sale.getTotalPrice());
+
+        totalSales.add(sign);
+        totalRevenueCents.add(sign * cents);
+        Day day = currentDay();
+        LocalDate saleDay = sale.getSaleDate() != null ? sale.getSaleDate().toLocalDate() : null;
+        if (day.date.equals(saleDay)) {
+            day.sales.add(sign);
+            day.revenueCents.add(sign * cents);
+        }
+
+        long units = (long) sign * sale.getQuantity();
+        bestSellers.record(day.date, saleDay, sale.getProductId(), units);
+        String category = categoryOf(sale);
+        if (category != null) {
+            categoryUnits.computeIfAbsent(category, c -> new LongAdder()).add(units);
+        }
+    }
+
+    /**
+     * Checkout fills the category in on the sale; for other writers it is read from the
+     * catalog.
+     */
+    private String categoryOf(Sale sale) {
+        if (sale.getCategory() != null) {
+            return sale.getCategory();
+        }
+        Product product = findProduct(sale.getProductId());
+        return product != null ? product.getCategory() : null;
+    }
+
+    private Product findProduct(int productId) {
+        try {
+            return productDAO.getProductById(productId);
+        } catch (SQLException e) {
+            System.err.println("Could not look up product " + productId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Current figures. Counters are read one by one while writers may be adding, so a snapshot
+     * taken mid-update can be off by the sales in flight; the next one catches up.
+     */
+    public AnalyticsSnapshot snapshot() {
+        Day day = currentDay();
+        long v = version.get();
+        Cached current = cached;
+        if (current != null && current.version == v && current.snapshot.day().equals(day.date)) {
+            return current.snapshot;
+        }
+
+        List<CategoryUnits> byCategory = new ArrayList<>(categoryUnits.size());
+        categoryUnits.forEach((category, units) -> {
+            long sum = units.sum();
+            if (sum > 0) {
+                byCategory.add(new CategoryUnits(category, sum));
+            }
+        });
+        byCategory.sort(Comparator.comparingLong(CategoryUnits::units).reversed());
+
+        AnalyticsSnapshot snapshot = new AnalyticsSnapshot(day.date, totalSales.sum(), totalRevenueCents.sum(),
+                day.sales.sum(), day.revenueCents.sum(), List.copyOf(byCategory));
+        cached = new Cached(v, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * The {@code k} best-selling products in {@code window}, with error bounds. Exact until
+     * more products sell in a window than the tracker has counters (
+     * {@code analytics.bestSellers.capacity}). Names come from the product catalog, which may
+     * read the database, so screens use {@link #bestSellersAsync}.
+     */
+    public BestSellers bestSellers(BestSellerWindow window, int k) {
+        BestSellerTracker.Ranking ranking = bestSellers.top(currentDay().date, window, k);
+        List<BestSeller> top = new ArrayList<>(ranking.estimates().size());
+        for (SpaceSaving.Estimate estimate : ranking.estimates()) {
+            Product product = findProduct(estimate.item());
+            top.add(new BestSeller(estimate.item(), product != null ? product.getName() : null,
+                    estimate.count(), estimate.error()));
+        }
+        return new BestSellers(window, List.copyOf(top), ranking.totalUnits(), ranking.maxError());
+    }
+
+    public CompletableFuture<BestSellers> bestSellersAsync(BestSellerWindow window, int k) {
+        return DaoExecutor.supply(() -> bestSellers(window, k));
+    }
+
+    /**
+     * Registers {@code listener} to run after every change, on the thread that made it.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Day currentDay() {
+        LocalDate date = LocalDate.now(clock);
+        Day day = today.get();
+        while (!day.date.equals(date)) {
+            Day next = new Day(date);
+            if (today.compareAndSet(day, next)) {
+                return next;
+            }
+            day = today.get();
+        }
+        return day;
+    }
+
+    private void startDayRollover() {
+        Thread.ofVirtual().name("analytics-day-rollover").start(() -> {
+            while (true) {
+                LocalDateTime now = LocalDateTime.now(clock);
+                LocalDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay();
+                try {
+                    Thread.sleep(Duration.between(now, midnight).plusSeconds(1));
+                } catch (InterruptedException e) {
+                    return;
+                }
+                currentDay();
+                changed();
+            }
+        });
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static final class Day {
+        final LocalDate date;
+        final LongAdder sales = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+
+        Day(LocalDate date) {
+            this.date = date;
+        }
+    }
+
+    private record Cached(long version, AnalyticsSnapshot snapshot) {
+    }
+}
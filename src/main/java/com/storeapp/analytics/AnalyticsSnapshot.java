@@ -0,0 +1,22 @@
+package com.storeapp.analytics;
+
+import com.storeapp.dao.CategoryUnits;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Point-in-time figures from {@link AnalyticsEngine}. Categories are ordered by units sold,
+ * largest first.
+ */
+public record AnalyticsSnapshot(LocalDate day, long totalSales, long totalRevenueCents,
+                                long daySales, long dayRevenueCents, List<CategoryUnits> unitsByCategory) {
+
+    public double totalRevenue() {
+        return totalRevenueCents / 100.0;
+    }
+
+    public double dayRevenue() {
+        return dayRevenueCents / 100.0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.storeapp.analytics;
+
+/**
+ * A product's estimated units sold in a {@link BestSellers} ranking. The true figure lies
+ * between {@code units - error} and {@code units}. {@code productName} is {@code null} if the
+ * product was deleted.
+ */
+public record BestSeller(int productId, String productName, long units, long error) {
+
+    public long guaranteedUnits() {
+        return units - error;
+    }
+}
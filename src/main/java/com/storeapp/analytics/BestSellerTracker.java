@@ -0,0 +1,72 @@
+package com.storeapp.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Bounded-memory best-sellers: one {@link SpaceSaving} summary per day for the last
+ * {@link BestSellerWindow#MAX_DAYS} days plus one for all time, each with the same number of
+ * counters. Windows are answered by merging the day summaries they cover. Memory is fixed by
+ * the capacity, not by the catalog or sales volume.
+ */
+final class BestSellerTracker {
+
+    private final int capacity;
+    private final TreeMap<LocalDate, SpaceSaving> days = new TreeMap<>();
+    private final SpaceSaving allTime;
+
+    BestSellerTracker(int capacity) {
+        this.capacity = capacity;
+        this.allTime = new SpaceSaving(capacity);
+    }
+
+    /**
+     * Adds (or, for a negative {@code units}, takes back) units of a product sold on
+     * {@code day}.
+     */
+    synchronized void record(LocalDate today, LocalDate day, int productId, long units) {
+        recordAllTime(productId, units);
+        recordDay(today, day, productId, units);
+    }
+
+    synchronized void recordAllTime(int productId, long units) {
+        update(allTime, productId, units);
+    }
+
+    synchronized void recordDay(LocalDate today, LocalDate day, int productId, long units) {
+        LocalDate oldest = today.minusDays(BestSellerWindow.MAX_DAYS - 1);
+        days.headMap(oldest).clear();
+        if (day != null && !day.isBefore(oldest) && !day.isAfter(today)) {
+            update(days.computeIfAbsent(day, d -> new SpaceSaving(capacity)), productId, units);
+        }
+    }
+
+    synchronized Ranking top(LocalDate today, BestSellerWindow window, int k) {
+        List<SpaceSaving> summaries = new ArrayList<>();
+        if (window.days() == 0) {
+            summaries.add(allTime);
+        } else {
+            summaries.addAll(days.subMap(today.minusDays(window.days() - 1), true, today, true).values());
+        }
+        long total = 0;
+        long maxError = 0;
+        for (SpaceSaving summary : summaries) {
+            total += summary.total();
+            maxError += summary.untrackedBound();
+        }
+        return new Ranking(SpaceSaving.merge(summaries, k), total, maxError);
+    }
+
+    private static void update(SpaceSaving summary, int productId, long units) {
+        if (units >= 0) {
+            summary.add(productId, units);
+        } else {
+            summary.subtract(productId, -units);
+        }
+    }
+
+    record Ranking(List<SpaceSaving.Estimate> estimates, long totalUnits, long maxError) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.storeapp.analytics;
+
+/**
+ * Time windows the best-sellers ranking can be asked for, ending today.
+ */
+public enum BestSellerWindow {
+    TODAY(1, "Today"),
+    LAST_7_DAYS(7, "Last 7 days"),
+    LAST_30_DAYS(30, "Last 30 days"),
+    ALL_TIME(0, "All time");
+
+    /**
+     * Longest window kept as per-day summaries.
+     */
+    static final int MAX_DAYS = 30;
+
+    private final int days;
+    private final String label;
+
+    BestSellerWindow(int days, String label) {
+        this.days = days;
+        this.label = label;
+    }
+
+    /**
+     * Number of days covered, or 0 for all time.
+     */
+    public int days() {
+        return days;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,14 @@
+package com.storeapp.analytics;
+
+import java.util.List;
+
+/**
+ * Top products by units for one window, best first. {@code maxError} bounds how far any count
+ * in the window may be overstated; it is 0 when the figures are exact.
+ */
+public record BestSellers(BestSellerWindow window, List<BestSeller> products, long totalUnits, long maxError) {
+
+    public boolean isExact() {
+        return maxError == 0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.storeapp.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Reduces a series to what a chart can show. A line chart cannot draw more points than it has
+ * pixels across, and a JavaFX chart pays per point in layout and scene-graph nodes, so series
+ * are cut down before they reach it.
+ */
+public final class Downsampling {
+
+    private Downsampling() {}
+
+    /**
+     * Largest-Triangle-Three-Buckets (Steinarsson, 2013). It keeps the first and last points,
+     * splits the rest into {@code threshold - 2} buckets, and from each keeps the point that
+     * forms the largest triangle with the previously kept point and the next bucket's average.
+     * Peaks and dips survive, unlike with plain averaging or striding. Linear in the input.
+     * Points must be ordered by x.
+     *
+     * @return {@code points} itself if it already has no more than {@code threshold} points
+     */
+    public static <T> List<T> lttb(List<T> points, int threshold, ToDoubleFunction<T> x, ToDoubleFunction<T> y) {
+        int n = points.size();
+        if (threshold < 3 || n <= threshold) {
+            return points;
+        }
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            T point = points.get(i);
+            xs[i] = x.applyAsDouble(point);
+            ys[i] = y.applyAsDouble(point);
+        }
+
+        List<T> sampled = new ArrayList<>(threshold);
+        sampled.add(points.get(0));
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = (int) (bucket * every) + 1;
+            int end = (int) ((bucket + 1) * every) + 1;
+
+            // Average of the next bucket; the last bucket looks ahead to the final point.
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * every) + 1, n);
+            if (nextStart >= nextEnd) {
+                nextStart = n - 1;
+                nextEnd = n;
+            }
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += xs[i];
+                avgY += ys[i];
+            }
+            avgX /= nextEnd - nextStart;
+            avgY /= nextEnd - nextStart;
+
+            int chosen = start;
+            double maxArea = -1;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((xs[a] - avgX) * (ys[i] - ys[a]) - (xs[a] - xs[i]) * (avgY - ys[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            sampled.add(points.get(chosen));
+            a = chosen;
+        }
+        sampled.add(points.get(n - 1));
+        return sampled;
+    }
+}
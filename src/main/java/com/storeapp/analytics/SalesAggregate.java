@@ -0,0 +1,14 @@
+package com.storeapp.analytics;
+
+/**
+ * Count, units and revenue of the sales matching a filter. Revenue is kept in cents so sums
+ * are exact.
+ */
+public record SalesAggregate(long count, long units, long revenueCents) {
+
+    public static final SalesAggregate EMPTY = new SalesAggregate(0, 0, 0);
+
+    public double revenue() {
+        return revenueCents / 100.0;
+    }
+}
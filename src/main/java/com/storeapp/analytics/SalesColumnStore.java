@@ -0,0 +1,582 @@
+package com.storeapp.analytics;
+
+import com.storeapp.dao.DaoExecutor;
+import com.storeapp.dao.SaleDAO;
+import com.storeapp.dao.SaleEvent;
+import com.storeapp.dao.SaleEvents;
+import com.storeapp.dao.SaleFilter;
+import com.storeapp.db.Database;
+import com.storeapp.model.Sale;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Read-optimised in-memory copy of the sales history, one primitive array per column:
+ * about 36 bytes a sale instead of a {@link Sale} with its boxed {@code LocalDateTime} and
+ * duplicated name and category strings. Categories are dictionary-encoded to {@code int}
+ * codes. Each query is one pass of a plain indexed loop whose filter test is branch-free
+ * arithmetic, which C2 unrolls and, for the simple sums, vectorises.
+ *
+ * <p>Rows are split into fixed-size partitions, each with a zone map of its oldest and newest
+ * sale. Sales arrive roughly in date order, so a date filter skips most partitions without
+ * reading them. The rest are scanned as fork-join tasks that each fill their own partial
+ * result, added together as the tasks join ({@code analytics.parallelism} threads).
+ *
+ * <p>Loaded once from {@link SaleDAO}; afterwards it follows {@link SaleEvents}, so the copy
+ * tracks every committed sale and deletion.
+ */
+public final class SalesColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Rows per partition: the unit of parallel work and of date pruning.
+    private static final int PARTITION_ROWS = 1 << 16;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    // Open date bounds, far enough inside the long range that from/to differences never overflow.
+    private static final long OPEN_FROM = Long.MIN_VALUE >> 2;
+    private static final long OPEN_TO = Long.MAX_VALUE >> 2;
+    private static final Object SHARED_LOCK = new Object();
+    private static CompletableFuture<SalesColumnStore> shared;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+    private int[] saleIds = new int[INITIAL_CAPACITY];
+    private int[] productIds = new int[INITIAL_CAPACITY];
+    private int[] userIds = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int[] categoryCodes = new int[INITIAL_CAPACITY];
+    private long[] epochSeconds = new long[INITIAL_CAPACITY];
+    private long[] cents = new long[INITIAL_CAPACITY];
+    private int maxSaleId;
+    private int maxProductId;
+    private int maxUserId;
+    // Zone map: oldest and newest sale time in each partition.
+    private long[] partitionMin = new long[1];
+    private long[] partitionMax = new long[1];
+
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> categoryCodesByName = new HashMap<>();
+    private final Map<Integer, Integer> categoryCodeByProduct = new HashMap<>();
+    private final Consumer<SaleEvent> saleListener = this::onSale;
+    // Events committed while the store is loading; guarded by the write lock.
+    private List<SaleEvent> pending;
+
+    /**
+     * An empty store that is not subscribed to {@link SaleEvents}; fill it with
+     * {@link #append}. Scans use up to {@code parallelism} threads of a pool owned by the
+     * store, or only the calling thread when it is 1.
+     */
+    public SalesColumnStore(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+        this.parallelism = parallelism;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * The application-wide store, loaded on first use on a background thread and kept current
+     * from {@link SaleEvents}. A failed load is not cached, so the next call retries.
+     */
+    public static CompletableFuture<SalesColumnStore> shared() {
+        synchronized (SHARED_LOCK) {
+            if (shared == null || shared.isCompletedExceptionally()) {
+                shared = DaoExecutor.supply(() -> load(new SaleDAO(), Database.getConfig().getAnalyticsParallelism()));
+            }
+            return shared;
+        }
+    }
+
+    private static SalesColumnStore load(SaleDAO saleDAO, int parallelism) throws SQLException {
+        SalesColumnStore store = new SalesColumnStore(parallelism);
+        store.pending = new ArrayList<>();
+        SaleEvents.subscribe(store.saleListener);
+        try {
+            // The cursor yields each sale once, so rows go straight in without the duplicate check.
+            saleDAO.forEachSale(SaleFilter.ALL, sale -> {
+                store.lock.writeLock().lock();
+                try {
+                    store.appendRow(sale);
+                } finally {
+                    store.lock.writeLock().unlock();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            SaleEvents.unsubscribe(store.saleListener);
+            throw e;
+        }
+
+        // Replay what was committed during the load; ids make both kinds of event idempotent.
+        store.lock.writeLock().lock();
+        try {
+            List<SaleEvent> missed = store.pending;
+            store.pending = null;
+            for (SaleEvent event : missed) {
+                store.onSale(event);
+            }
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+        return store;
+    }
+
+    private void onSale(SaleEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            } else if (event.type() == SaleEvent.Type.ADDED) {
+                append(event.sale());
+            } else {
+                remove(event.sale().getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a committed sale. A sale already present (e.g. one committed while the store was
+     * loading) is ignored.
+     */
+    public void append(Sale sale) {
+        lock.writeLock().lock();
+        try {
+            if (sale.getId() <= maxSaleId && indexOf(sale.getId()) >= 0) {
+                return;
+            }
+            appendRow(sale);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void appendRow(Sale sale) {
+        if (size == saleIds.length) {
+            grow();
+        }
+        int i = size++;
+        saleIds[i] = sale.getId();
+        productIds[i] = sale.getProductId();
+        userIds[i] = sale.getUserId();
+        quantities[i] = sale.getQuantity();
+        categoryCodes[i] = categoryCode(sale);
+        epochSeconds[i] = toEpochSecond(sale.getSaleDate());
+        cents[i] = Math.round(sale.getTotalPrice() * 100);
+        maxSaleId = Math.max(maxSaleId, sale.getId());
+        maxProductId = Math.max(maxProductId, sale.getProductId());
+        maxUserId = Math.max(maxUserId, sale.getUserId());
+
+        int partition = i / PARTITION_ROWS;
+        if (partition == partitionMin.length) {
+            partitionMin = Arrays.copyOf(partitionMin, partition * 2);
+            partitionMax = Arrays.copyOf(partitionMax, partition * 2);
+        }
+        long ts = epochSeconds[i];
+        if (i % PARTITION_ROWS == 0) {
+            partitionMin[partition] = ts;
+            partitionMax[partition] = ts;
+        } else {
+            partitionMin[partition] = Math.min(partitionMin[partition], ts);
+            partitionMax[partition] = Math.max(partitionMax[partition], ts);
+        }
+    }
+
+    /**
+     * Drops a deleted sale. Deletes are rare, so the columns are compacted in place rather
+     * than carrying a tombstone test in every scan.
+     */
+    public boolean remove(int saleId) {
+        lock.writeLock().lock();
+        try {
+            int i = indexOf(saleId);
+            if (i < 0) {
+                return false;
+            }
+            int tail = size - i - 1;
+            System.arraycopy(saleIds, i + 1, saleIds, i, tail);
+            System.arraycopy(productIds, i + 1, productIds, i, tail);
+            System.arraycopy(userIds, i + 1, userIds, i, tail);
+            System.arraycopy(quantities, i + 1, quantities, i, tail);
+            System.arraycopy(categoryCodes, i + 1, categoryCodes, i, tail);
+            System.arraycopy(epochSeconds, i + 1, epochSeconds, i, tail);
+            System.arraycopy(cents, i + 1, cents, i, tail);
+            size--;
+            // Later rows moved back by one, across partition boundaries.
+            for (int partition = i / PARTITION_ROWS; partition < partitionCount(); partition++) {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int row = partitionStart(partition), end = partitionEnd(partition); row < end; row++) {
+                    min = Math.min(min, epochSeconds[row]);
+                    max = Math.max(max, epochSeconds[row]);
+                }
+                partitionMin[partition] = min;
+                partitionMax[partition] = max;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes held by the column arrays.
+     */
+    public long columnBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) saleIds.length * (5 * Integer.BYTES + 2 * Long.BYTES);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SalesAggregate aggregate(SaleFilter filter) {
+        lock.readLock().lock();
+        try {
+            Predicate p = compile(filter);
+            if (p == null) {
+                return SalesAggregate.EMPTY;
+            }
+            long[] ts = epochSeconds;
+            int[] products = productIds;
+            int[] users = userIds;
+            int[] codes = categoryCodes;
+            int[] qty = quantities;
+            long[] amounts = cents;
+            long[] totals = scan(p, 3, (from, to, out) -> {
+                long count = 0;
+                long units = 0;
+                long revenue = 0;
+                for (int i = from; i < to; i++) {
+                    long m = p.match(ts[i], products[i], users[i], codes[i]);
+                    count += m;
+                    units += qty[i] & -m;
+                    revenue += amounts[i] & -m;
+                }
+                out[0] += count;
+                out[1] += units;
+                out[2] += revenue;
+            });
+            return new SalesAggregate(totals[0], totals[1], totals[2]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Units sold per product id among the matching sales, largest first.
+     */
+    public Map<Integer, Long> unitsByProduct(SaleFilter filter) {
+        long[] units;
+        lock.readLock().lock();
+        try {
+            Predicate p = compile(filter);
+            if (p == null) {
+                return Map.of();
+            }
+            long[] ts = epochSeconds;
+            int[] products = productIds;
+            int[] users = userIds;
+            int[] codes = categoryCodes;
+            int[] qty = quantities;
+            units = scan(p, maxProductId + 1, (from, to, out) -> {
+                for (int i = from; i < to; i++) {
+                    int product = products[i];
+                    long m = p.match(ts[i], product, users[i], codes[i]);
+                    out[product] += qty[i] & -m;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return sortedNonZero(units, Integer::valueOf);
+    }
+
+    /**
+     * Units sold per category among the matching sales, largest first. Sales whose category
+     * is unknown are left out.
+     */
+    public Map<String, Long> unitsByCategory(SaleFilter filter) {
+        long[] units;
+        List<String> names;
+        lock.readLock().lock();
+        try {
+            Predicate p = compile(filter);
+            if (p == null) {
+                return Map.of();
+            }
+            long[] ts = epochSeconds;
+            int[] products = productIds;
+            int[] users = userIds;
+            int[] codes = categoryCodes;
+            int[] qty = quantities;
+            // Slot 0 collects the unknown category (code -1).
+            units = scan(p, categories.size() + 1, (from, to, out) -> {
+                for (int i = from; i < to; i++) {
+                    int code = codes[i];
+                    long m = p.match(ts[i], products[i], users[i], code);
+                    out[code + 1] += qty[i] & -m;
+                }
+            });
+            units[0] = 0;
+            names = List.copyOf(categories);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return sortedNonZero(units, slot -> names.get(slot - 1));
+    }
+
+    /**
+     * Sales, units and revenue per user (cashier) among the matching sales, highest revenue
+     * first.
+     */
+    public Map<Integer, SalesAggregate> salesByUser(SaleFilter filter) {
+        long[] totals;
+        lock.readLock().lock();
+        try {
+            Predicate p = compile(filter);
+            if (p == null) {
+                return Map.of();
+            }
+            long[] ts = epochSeconds;
+            int[] products = productIds;
+            int[] users = userIds;
+            int[] codes = categoryCodes;
+            int[] qty = quantities;
+            long[] amounts = cents;
+            // Three slots per user: count, units, revenue.
+            totals = scan(p, 3 * (maxUserId + 1), (from, to, out) -> {
+                for (int i = from; i < to; i++) {
+                    int slot = 3 * users[i];
+                    long m = p.match(ts[i], products[i], users[i], codes[i]);
+                    out[slot] += m;
+                    out[slot + 1] += qty[i] & -m;
+                    out[slot + 2] += amounts[i] & -m;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Integer> userIdsByRevenue = new ArrayList<>();
+        for (int user = 0; user < totals.length / 3; user++) {
+            if (totals[3 * user] != 0) {
+                userIdsByRevenue.add(user);
+            }
+        }
+        userIdsByRevenue.sort((a, b) -> Long.compare(totals[3 * b + 2], totals[3 * a + 2]));
+        Map<Integer, SalesAggregate> result = new LinkedHashMap<>();
+        for (int user : userIdsByRevenue) {
+            result.put(user, new SalesAggregate(totals[3 * user], totals[3 * user + 1], totals[3 * user + 2]));
+        }
+        return result;
+    }
+
+    /**
+     * Runs {@code kernel} over every partition whose zone map overlaps the filter's dates and
+     * returns the sum of the per-task results. Each task accumulates into its own array, so
+     * workers share nothing while scanning; the arrays are added pairwise as tasks join.
+     * Called with the read lock held.
+     */
+    private long[] scan(Predicate p, int width, Kernel kernel) {
+        int[] partitions = new int[partitionCount()];
+        int n = 0;
+        for (int partition = 0; partition < partitions.length; partition++) {
+            if (partitionMax[partition] >= p.from() && partitionMin[partition] <= p.to()) {
+                partitions[n++] = partition;
+            }
+        }
+        if (pool == null || n < 2) {
+            long[] out = new long[width];
+            for (int i = 0; i < n; i++) {
+                kernel.scan(partitionStart(partitions[i]), partitionEnd(partitions[i]), out);
+            }
+            return out;
+        }
+        // A few tasks per thread so a slow one can be balanced, but no more: every task
+        // allocates a result array of the group-by's width.
+        int leafPartitions = Math.max(1, n / (parallelism * 4));
+        return pool.invoke(new ScanTask(kernel, width, partitions, 0, n, leafPartitions));
+    }
+
+    private int partitionCount() {
+        return (size + PARTITION_ROWS - 1) / PARTITION_ROWS;
+    }
+
+    private static int partitionStart(int partition) {
+        return partition * PARTITION_ROWS;
+    }
+
+    private int partitionEnd(int partition) {
+        return Math.min(size, (partition + 1) * PARTITION_ROWS);
+    }
+
+    @FunctionalInterface
+    private interface Kernel {
+        /**
+         * Adds the matching rows in {@code [from, to)} into {@code out}.
+         */
+        void scan(int from, int to, long[] out);
+    }
+
+    // ForkJoinTask is Serializable, but scan tasks never leave the pool.
+    @SuppressWarnings("serial")
+    private final class ScanTask extends RecursiveTask<long[]> {
+        private final Kernel kernel;
+        private final int width;
+        private final int[] partitions;
+        private final int lo;
+        private final int hi;
+        private final int leafPartitions;
+
+        ScanTask(Kernel kernel, int width, int[] partitions, int lo, int hi, int leafPartitions) {
+            this.kernel = kernel;
+            this.width = width;
+            this.partitions = partitions;
+            this.lo = lo;
+            this.hi = hi;
+            this.leafPartitions = leafPartitions;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hi - lo <= leafPartitions) {
+                long[] out = new long[width];
+                for (int i = lo; i < hi; i++) {
+                    kernel.scan(partitionStart(partitions[i]), partitionEnd(partitions[i]), out);
+                }
+                return out;
+            }
+            int mid = (lo + hi) >>> 1;
+            ScanTask left = new ScanTask(kernel, width, partitions, lo, mid, leafPartitions);
+            left.fork();
+            long[] out = new ScanTask(kernel, width, partitions, mid, hi, leafPartitions).compute();
+            long[] other = left.join();
+            for (int i = 0; i < width; i++) {
+                out[i] += other[i];
+            }
+            return out;
+        }
+    }
+
+    private static <K> Map<K, Long> sortedNonZero(long[] totals, java.util.function.IntFunction<K> key) {
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < totals.length; i++) {
+            if (totals[i] != 0) {
+                slots.add(i);
+            }
+        }
+        slots.sort((a, b) -> Long.compare(totals[b], totals[a]));
+        Map<K, Long> result = new LinkedHashMap<>();
+        for (int slot : slots) {
+            result.put(key.apply(slot), totals[slot]);
+        }
+        return result;
+    }
+
+    /**
+     * The filter as primitive bounds, or {@code null} if nothing can match.
+     */
+    private Predicate compile(SaleFilter filter) {
+        int category = 0;
+        if (filter.category() != null) {
+            Integer code = categoryCodesByName.get(filter.category());
+            if (code == null) {
+                return null;
+            }
+            category = code;
+        }
+        return new Predicate(
+                filter.from() != null ? toEpochSecond(filter.from()) : OPEN_FROM,
+                filter.to() != null ? toEpochSecond(filter.to()) : OPEN_TO,
+                filter.productId() != null ? filter.productId() : 0, filter.productId() == null ? 1 : 0,
+                filter.userId() != null ? filter.userId() : 0, filter.userId() == null ? 1 : 0,
+                category, filter.category() == null ? 1 : 0);
+    }
+
+    /**
+     * A compiled filter. {@link #match} returns 1 or 0 using only arithmetic, so scans have
+     * no data-dependent branches to mispredict and the row can be masked in with
+     * {@code value & -match}. An {@code any*} flag of 1 disables that column's test.
+     */
+    private record Predicate(long from, long to, int productId, long anyProduct,
+                             int userId, long anyUser, int category, long anyCategory) {
+
+        long match(long ts, int product, int user, int code) {
+            // Sign bit clear in both differences <=> from <= ts <= to.
+            long inRange = ~((ts - from) | (to - ts)) >>> 63;
+            return inRange & (equal(product, productId) | anyProduct)
+                    & (equal(user, userId) | anyUser)
+                    & (equal(code, category) | anyCategory);
+        }
+
+        private static long equal(int a, int b) {
+            int x = a ^ b;
+            return ((x | -x) >>> 31) ^ 1;
+        }
+    }
+
+    private int categoryCode(Sale sale) {
+        String category = sale.getCategory();
+        if (category == null) {
+            return categoryCodeByProduct.getOrDefault(sale.getProductId(), -1);
+        }
+        Integer code = categoryCodesByName.get(category);
+        if (code == null) {
+            code = categories.size();
+            categories.add(category);
+            categoryCodesByName.put(category, code);
+        }
+        categoryCodeByProduct.put(sale.getProductId(), code);
+        return code;
+    }
+
+    private int indexOf(int saleId) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (saleIds[i] == saleId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = saleIds.length * 2;
+        saleIds = Arrays.copyOf(saleIds, capacity);
+        productIds = Arrays.copyOf(productIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.atZone(ZONE).toEpochSecond();
+    }
+}
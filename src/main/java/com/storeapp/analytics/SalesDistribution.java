@@ -0,0 +1,13 @@
+package com.storeapp.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Sketch-based KPIs for the sales from {@code from} to {@code to}. {@code sales} is exact; the
+ * distinct counts are within {@link SalesSketches#DISTINCT_ERROR} (one standard error) and the
+ * ticket values are within {@link SalesSketches#QUANTILE_RANK_ERROR} of the requested rank.
+ * The ticket values are {@code NaN} when there were no sales.
+ */
+public record SalesDistribution(LocalDate from, LocalDate to, long sales, long distinctProducts,
+                                long distinctCashiers, double medianTicket, double p95Ticket) {
+}
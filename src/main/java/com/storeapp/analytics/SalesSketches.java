@@ -0,0 +1,225 @@
+package com.storeapp.analytics;
+
+import com.storeapp.dao.DaoExecutor;
+import com.storeapp.dao.SaleDAO;
+import com.storeapp.dao.SaleEvent;
+import com.storeapp.dao.SaleEvents;
+import com.storeapp.db.Database;
+import com.storeapp.model.Sale;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Distinct products, distinct cashiers and ticket-value quantiles for any date range, answered
+ * by merging one small sketch set per day instead of scanning and sorting the sales. Each day
+ * holds two {@link HyperLogLog}s and a {@link KllSketch}, about 10 KB, whatever its sales.
+ *
+ * <p>A day is built from its sales the first time a range includes it and then kept current
+ * from {@link SaleEvents}. Sketches cannot take a value back out, so a deleted sale drops its
+ * day and the next query rebuilds it. At most {@code analytics.sketchDays} days are kept; the
+ * least recently queried or updated day is dropped first and rebuilt if it is needed again.
+ */
+public final class SalesSketches {
+
+    private static final int PRECISION = 12;
+    private static final int QUANTILE_K = 200;
+
+    /** Relative standard error of the distinct counts once they exceed about 10,000. */
+    public static final double DISTINCT_ERROR = HyperLogLog.standardError(PRECISION);
+    /** Rank error of the ticket quantiles with 99% confidence, for k = 200. */
+    public static final double QUANTILE_RANK_ERROR = 0.0165;
+
+    private static final Object SHARED_LOCK = new Object();
+    private static SalesSketches shared;
+
+    private final SaleDAO saleDAO;
+    // All guarded by this. Access order, so the eldest entry is the least recently used day.
+    private final Map<LocalDate, DaySketch> days;
+    // While a build is running: the newest sale added to a day that was not built, and when
+    // each day last lost a sale. A build that may have missed either is used once but not
+    // kept. Both are cleared when no build is running.
+    private final Map<LocalDate, Integer> unbuiltAdds = new HashMap<>();
+    private final Map<LocalDate, Long> deletedAt = new HashMap<>();
+    private int buildsRunning;
+    private long generation;
+    private final Consumer<SaleEvent> saleListener = this::onSale;
+
+    SalesSketches(SaleDAO saleDAO, int maxDays) {
+        this.saleDAO = saleDAO;
+        this.days = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, DaySketch> eldest) {
+                return size() > maxDays;
+            }
+        };
+    }
+
+    /**
+     * The application-wide sketches, subscribed to sale events on first use.
+     */
+    public static SalesSketches shared() {
+        synchronized (SHARED_LOCK) {
+            if (shared == null) {
+                int maxDays = 366;
+                try {
+                    maxDays = Database.getConfig().getSketchDays();
+                } catch (SQLException e) {
+                    System.err.println("Could not read sketch settings: " + e.getMessage());
+                }
+                shared = new SalesSketches(new SaleDAO(), maxDays);
+                SaleEvents.subscribe(shared.saleListener);
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * Sketch-based KPIs for sales from {@code from} to {@code to} inclusive. Days not seen
+     * before are read from the database in one range query.
+     */
+    public SalesDistribution summarize(LocalDate from, LocalDate to) throws SQLException {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("A summary needs a start date on or before its end date");
+        }
+        // Kept days are merged straight away, so building the others cannot evict them first.
+        DaySketch merged = new DaySketch();
+        List<LocalDate> missing = new ArrayList<>();
+        synchronized (this) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                DaySketch sketch = days.get(day);
+                if (sketch != null) {
+                    merged.merge(sketch);
+                } else {
+                    missing.add(day);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<LocalDate, DaySketch> built = build(missing.get(0), missing.get(missing.size() - 1));
+            for (LocalDate day : missing) {
+                DaySketch sketch = built.get(day);
+                if (sketch != null) {
+                    merged.merge(sketch);
+                }
+            }
+        }
+        return new SalesDistribution(from, to, merged.tickets.count(), merged.products.estimate(),
+                merged.users.estimate(), merged.tickets.quantile(0.5), merged.tickets.quantile(0.95));
+    }
+
+    /**
+     * Builds every day from {@code first} to {@code last} in one pass over their sales.
+     *
+     * <p>Events are published after commit, so one may arrive for a sale the build has or has
+     * not read. SQLite commits one writer at a time and ids only grow, so the query saw every
+     * sale up to some id: a sale in range is in the build exactly when its id is no greater
+     * than the largest id read. Days that may be missing a sale, or still hold a deleted one,
+     * are returned for this answer but not kept.
+     */
+    private Map<LocalDate, DaySketch> build(LocalDate first, LocalDate last) throws SQLException {
+        long startedAt;
+        synchronized (this) {
+            startedAt = generation;
+            buildsRunning++;
+        }
+        try {
+            return build(first, last, startedAt);
+        } finally {
+            synchronized (this) {
+                if (--buildsRunning == 0) {
+                    unbuiltAdds.clear();
+                    deletedAt.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Days from {@code first} to {@code last} that were already kept are built again for this
+     * answer but not replaced, since they have been following events since.
+     */
+    private Map<LocalDate, DaySketch> build(LocalDate first, LocalDate last, long startedAt) throws SQLException {
+        Map<LocalDate, DaySketch> built = new HashMap<>();
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            built.put(day, new DaySketch());
+        }
+        int[] lastRead = new int[1];
+        saleDAO.forEachSaleBetween(first, last, sale -> {
+            DaySketch sketch = built.get(sale.getSaleDate().toLocalDate());
+            if (sketch != null) {
+                sketch.add(sale);
+                lastRead[0] = Math.max(lastRead[0], sale.getId());
+            }
+        });
+
+        synchronized (this) {
+            built.forEach((day, sketch) -> {
+                boolean missedAdd = unbuiltAdds.getOrDefault(day, 0) > lastRead[0];
+                boolean missedDelete = deletedAt.getOrDefault(day, 0L) > startedAt;
+                if (!missedAdd && !missedDelete && !days.containsKey(day)) {
+                    sketch.lastSaleId = lastRead[0];
+                    days.put(day, sketch);
+                    unbuiltAdds.remove(day);
+                }
+            });
+        }
+        return built;
+    }
+
+    private synchronized void onSale(SaleEvent event) {
+        Sale sale = event.sale();
+        if (sale.getSaleDate() == null) {
+            return;
+        }
+        LocalDate day = sale.getSaleDate().toLocalDate();
+        if (event.type() == SaleEvent.Type.DELETED) {
+            days.remove(day);
+            ++generation;
+            if (buildsRunning > 0) {
+                deletedAt.put(day, generation);
+            }
+            return;
+        }
+        DaySketch sketch = days.get(day);
+        if (sketch == null) {
+            // Only a running build can have missed it; a later one reads it.
+            if (buildsRunning > 0) {
+                unbuiltAdds.merge(day, sale.getId(), Math::max);
+            }
+        } else if (sale.getId() > sketch.lastSaleId) {
+            sketch.add(sale);
+        }
+    }
+
+    public CompletableFuture<SalesDistribution> summarizeAsync(LocalDate from, LocalDate to) {
+        return DaoExecutor.supply(() -> summarize(from, to));
+    }
+
+    private static final class DaySketch {
+        final HyperLogLog products = new HyperLogLog(PRECISION);
+        final HyperLogLog users = new HyperLogLog(PRECISION);
+        final KllSketch tickets = new KllSketch(QUANTILE_K);
+        // Sales up to this id were read when the day was built.
+        int lastSaleId;
+
+        void add(Sale sale) {
+            products.add(sale.getProductId());
+            users.add(sale.getUserId());
+            tickets.add(sale.getTotalPrice());
+        }
+
+        void merge(DaySketch other) {
+            products.merge(other.products);
+            users.merge(other.users);
+            tickets.merge(other.tickets);
+        }
+    }
+}
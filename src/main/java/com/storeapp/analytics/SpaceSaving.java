@@ -0,0 +1,186 @@
+package com.storeapp.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving heavy-hitters summary (Metwally et al.) over integer items. It keeps at
+ * most {@code capacity} counters no matter how many distinct items the stream has. When a new
+ * item arrives and the summary is full, it takes over the smallest counter and inherits its
+ * count as the item's error. Every reported count is therefore an overestimate by at most its
+ * {@code error}, and at most {@code total / capacity}. Any item with more than that many units
+ * is guaranteed to be tracked.
+ *
+ * <p>Counters sit in a min-heap, so an update costs O(log capacity). Not thread-safe.
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final Counter[] heap;
+    private final Map<Integer, Counter> counters;
+    private int size;
+    private long total;
+
+    SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.heap = new Counter[capacity];
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    void add(int item, long weight) {
+        total += weight;
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += weight;
+            siftDown(counter.index);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter(item, weight, 0);
+            counter.index = size;
+            heap[size++] = counter;
+            counters.put(item, counter);
+            siftUp(counter.index);
+            return;
+        }
+        Counter min = heap[0];
+        counters.remove(min.item);
+        min.item = item;
+        min.error = min.count;
+        min.count += weight;
+        counters.put(item, min);
+        siftDown(0);
+    }
+
+    /**
+     * Takes units back out, e.g. for a deleted sale. Space-Saving has no true deletes: an
+     * untracked item is only removed from the total. A tracked item's counter goes down with
+     * its bounds intact, but the minimum may drop below the count an untracked item had.
+     */
+    void subtract(int item, long weight) {
+        total -= weight;
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count -= weight;
+            siftUp(counter.index);
+        }
+    }
+
+    long total() {
+        return total;
+    }
+
+    /**
+     * Upper bound on the count of any item that is not tracked: the smallest counter once the
+     * summary is full, otherwise zero.
+     */
+    long untrackedBound() {
+        return size < capacity ? 0 : Math.max(0, heap[0].count);
+    }
+
+    /**
+     * Tracked items, largest count first.
+     */
+    List<Estimate> estimates() {
+        List<Estimate> estimates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            estimates.add(new Estimate(heap[i].item, heap[i].count, heap[i].error));
+        }
+        estimates.sort(Estimate.LARGEST_FIRST);
+        return estimates;
+    }
+
+    /**
+     * Combines summaries of disjoint streams (e.g. one per day). A summary that does not track
+     * an item contributes its {@link #untrackedBound()} to the item's count and error, so the
+     * combined bounds stay valid. Returns the {@code k} largest.
+     */
+    static List<Estimate> merge(List<SpaceSaving> summaries, int k) {
+        // Per item: summed count, summed error, and the bounds of the summaries that track it.
+        // The summaries that do not track it add the remaining bounds, in one pass per counter.
+        Map<Integer, long[]> merged = new HashMap<>();
+        long bounds = 0;
+        for (SpaceSaving summary : summaries) {
+            long bound = summary.untrackedBound();
+            bounds += bound;
+            for (int i = 0; i < summary.size; i++) {
+                Counter counter = summary.heap[i];
+                long[] sums = merged.computeIfAbsent(counter.item, item -> new long[3]);
+                sums[0] += counter.count;
+                sums[1] += counter.error;
+                sums[2] += bound;
+            }
+        }
+        List<Estimate> estimates = new ArrayList<>(merged.size());
+        for (Map.Entry<Integer, long[]> entry : merged.entrySet()) {
+            long[] sums = entry.getValue();
+            long untracked = bounds - sums[2];
+            estimates.add(new Estimate(entry.getKey(), sums[0] + untracked, sums[1] + untracked));
+        }
+        estimates.sort(Estimate.LARGEST_FIRST);
+        return List.copyOf(estimates.subList(0, Math.min(k, estimates.size())));
+    }
+
+    private void siftUp(int i) {
+        Counter counter = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(counter, i);
+    }
+
+    private void siftDown(int i) {
+        Counter counter = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(counter, i);
+    }
+
+    private void place(Counter counter, int i) {
+        heap[i] = counter;
+        counter.index = i;
+    }
+
+    /**
+     * An item's estimated count. The true count lies in {@code [count - error, count]}.
+     */
+    record Estimate(int item, long count, long error) {
+        static final Comparator<Estimate> LARGEST_FIRST =
+                Comparator.comparingLong(Estimate::count).reversed().thenComparingInt(Estimate::item);
+    }
+
+    private static final class Counter {
+        int item;
+        long count;
+        long error;
+        int index;
+
+        Counter(int item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
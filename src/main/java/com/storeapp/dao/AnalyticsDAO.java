@@ -0,0 +1,258 @@
+package com.storeapp.dao;
+
+import com.storeapp.db.Database;
+
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Dashboard aggregates computed by SQLite from {@code sales_daily_rollup} (see
+ * {@link SalesRollup}) rather than the raw sales. Each method is a single GROUP BY/SUM query
+ * that returns only the aggregated rows, and its cost grows with the number of days and
+ * products in range, not with the number of sales. Date ranges are inclusive; a {@code null}
+ * bound is open. The chart queries' results are kept in the {@link QueryCache}, so they are
+ * shared and read-only.
+ */
+public class AnalyticsDAO {
+
+    private static final String FIRST_DAY = "0000-01-01";
+    private static final String LAST_DAY = "9999-12-31";
+
+    private static final String KPIS =
+            "SELECT COALESCE(SUM(sale_count), 0) AS total_sales, COALESCE(SUM(revenue), 0) AS total_revenue, " +
+            "COALESCE(SUM(CASE WHEN day BETWEEN ? AND ? THEN sale_count END), 0) AS period_sales, " +
+            "COALESCE(SUM(CASE WHEN day BETWEEN ? AND ? THEN revenue END), 0) AS period_revenue " +
+            "FROM sales_daily_rollup";
+    private static final String UNITS_BY_CATEGORY =
+            "SELECT p.category, SUM(t.units) AS units FROM " +
+            "(SELECT product_id, SUM(units) AS units FROM sales_daily_rollup WHERE day BETWEEN ? AND ? " +
+            " GROUP BY product_id) t " +
+            "JOIN products p ON p.id = t.product_id " +
+            "GROUP BY p.category ORDER BY units DESC";
+    // Hourly buckets need the raw sales (the rollup is per day). Grouping on integer 15-minute
+    // slots streams along the covering sale_date index without formatting a date per row; the
+    // slots are folded into local hours afterwards, which also holds for half-hour time zones.
+    private static final long SLOT_MILLIS = 15 * 60 * 1000;
+    private static final String SLOTTED_REVENUE =
+            "SELECT sale_date / " + SLOT_MILLIS + " AS slot, COUNT(*) AS sale_count, SUM(quantity) AS units, " +
+            "SUM(total_price) AS revenue FROM sales WHERE sale_date >= ? AND sale_date < ? GROUP BY slot";
+    private static final String BUCKETED_REVENUE =
+            "SELECT %s AS bucket, SUM(sale_count) AS sale_count, SUM(units) AS units, SUM(revenue) AS revenue " +
+            "FROM sales_daily_rollup WHERE day BETWEEN ? AND ? GROUP BY bucket ORDER BY bucket";
+    private static final String PRODUCT_TOTAL_UNITS =
+            "SELECT product_id, SUM(units) AS units FROM sales_daily_rollup GROUP BY product_id";
+    private static final String PRODUCT_DAY_UNITS =
+            "SELECT day, product_id, SUM(units) AS units FROM sales_daily_rollup WHERE day >= ? " +
+            "GROUP BY day, product_id";
+    private static final String LAST_SALE_ID = "SELECT COALESCE(MAX(id), 0) FROM sales";
+    // Margins: the rollup is summed by the dimension's key first, then only the totals are
+    // joined for display names. Cost in the rollup comes from each sale's recorded unit cost.
+    private static final String MARGIN_TOTALS =
+            "SUM(sale_count) AS sale_count, SUM(units) AS units, SUM(revenue) AS revenue, SUM(cost) AS cost";
+    private static final String MARGINS_BY_PRODUCT =
+            "SELECT COALESCE(p.name, 'Product #' || t.product_id) AS grp, t.* FROM " +
+            "(SELECT product_id, " + MARGIN_TOTALS + " FROM sales_daily_rollup WHERE day BETWEEN ? AND ? " +
+            " GROUP BY product_id) t " +
+            "LEFT JOIN products p ON p.id = t.product_id ORDER BY t.revenue - t.cost DESC, grp";
+    private static final String MARGINS_BY_CATEGORY =
+            "SELECT COALESCE(p.category, 'Unknown') AS grp, SUM(t.sale_count) AS sale_count, " +
+            "SUM(t.units) AS units, SUM(t.revenue) AS revenue, SUM(t.cost) AS cost FROM " +
+            "(SELECT product_id, " + MARGIN_TOTALS + " FROM sales_daily_rollup WHERE day BETWEEN ? AND ? " +
+            " GROUP BY product_id) t " +
+            "LEFT JOIN products p ON p.id = t.product_id GROUP BY grp ORDER BY SUM(t.revenue) - SUM(t.cost) DESC, grp";
+    private static final String MARGINS_BY_DAY =
+            "SELECT day AS grp, " + MARGIN_TOTALS + " FROM sales_daily_rollup WHERE day BETWEEN ? AND ? " +
+            "GROUP BY day ORDER BY day";
+    private static final String MARGINS_BY_EMPLOYEE =
+            "SELECT COALESCE(u.username, 'User #' || t.user_id) AS grp, t.* FROM " +
+            "(SELECT user_id, " + MARGIN_TOTALS + " FROM sales_daily_rollup WHERE day BETWEEN ? AND ? " +
+            " GROUP BY user_id) t " +
+            "LEFT JOIN users u ON u.id = t.user_id ORDER BY t.revenue - t.cost DESC, grp";
+
+    /**
+     * Revenue, cost and gross profit per product, category, day or employee. Days come oldest
+     * first, the other dimensions most profitable first. Sales of deleted products keep their
+     * margin under a placeholder name, so the rows always add up to the range's totals.
+     */
+    public List<GrossMargin> getGrossMargins(MarginDimension dimension, LocalDate from, LocalDate to)
+            throws SQLException {
+        // Product rows show names and category rows depend on every product's category.
+        boolean showsProducts = dimension == MarginDimension.PRODUCT || dimension == MarginDimension.CATEGORY;
+        return QueryCache.shared().get(QueryCache.Key.days("grossMargins", from, to, dimension),
+                () -> queryGrossMargins(dimension, from, to), margins -> showsProducts ? null : Set.of());
+    }
+
+    private List<GrossMargin> queryGrossMargins(MarginDimension dimension, LocalDate from, LocalDate to)
+            throws SQLException {
+        String sql = switch (dimension) {
+            case PRODUCT -> MARGINS_BY_PRODUCT;
+            case CATEGORY -> MARGINS_BY_CATEGORY;
+            case DAY -> MARGINS_BY_DAY;
+            case EMPLOYEE -> MARGINS_BY_EMPLOYEE;
+        };
+        List<GrossMargin> margins = new ArrayList<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindRange(stmt, 1, from, to);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                margins.add(new GrossMargin(rs.getString("grp"), rs.getLong("sale_count"), rs.getLong("units"),
+                        rs.getDouble("revenue"), rs.getDouble("cost")));
+            }
+        }
+        return List.copyOf(margins);
+    }
+
+    /**
+     * Revenue from {@code from} to {@code to} inclusive, one point per {@code bucket} in order,
+     * with zero points for buckets without sales. The first and last week or month may start
+     * before {@code from} or run past {@code to}, but only count sales inside the range.
+     */
+    public List<RevenuePoint> getRevenueSeries(LocalDate from, LocalDate to, TimeBucket bucket) throws SQLException {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("A revenue series needs a start date on or before its end date");
+        }
+        return QueryCache.shared().get(QueryCache.Key.days("revenueSeries", from, to, bucket),
+                () -> queryRevenueSeries(from, to, bucket), series -> Set.of());
+    }
+
+    private List<RevenuePoint> queryRevenueSeries(LocalDate from, LocalDate to, TimeBucket bucket) throws SQLException {
+        Map<LocalDateTime, RevenuePoint> found = new HashMap<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(bucket == TimeBucket.HOUR
+                     ? SLOTTED_REVENUE
+                     : String.format(BUCKETED_REVENUE, bucketKey(bucket)))) {
+            if (bucket == TimeBucket.HOUR) {
+                stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                stmt.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+            } else {
+                bindRange(stmt, 1, from, to);
+            }
+            ResultSet rs = stmt.executeQuery();
+            ZoneId zone = ZoneId.systemDefault();
+            while (rs.next()) {
+                LocalDateTime start = bucket == TimeBucket.HOUR
+                        ? bucket.start(LocalDateTime.ofInstant(Instant.ofEpochMilli(rs.getLong("slot") * SLOT_MILLIS), zone))
+                        : LocalDate.parse(rs.getString("bucket")).atStartOfDay();
+                RevenuePoint point = new RevenuePoint(start, rs.getLong("sale_count"), rs.getLong("units"),
+                        rs.getDouble("revenue"));
+                found.merge(start, point, (x, y) -> new RevenuePoint(start, x.saleCount() + y.saleCount(),
+                        x.units() + y.units(), x.revenue() + y.revenue()));
+            }
+        }
+
+        List<RevenuePoint> series = new ArrayList<>();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        for (LocalDateTime start = bucket.start(from.atStartOfDay()); start.isBefore(end); start = bucket.next(start)) {
+            RevenuePoint point = found.get(start);
+            series.add(point != null ? point : new RevenuePoint(start, 0, 0, 0));
+        }
+        return List.copyOf(series);
+    }
+
+    private static String bucketKey(TimeBucket bucket) {
+        return switch (bucket) {
+            case DAY -> "day";
+            // Step back six days, then forward to a Monday: the Monday on or before the day.
+            case WEEK -> "date(day, '-6 days', 'weekday 1')";
+            case MONTH -> "strftime('%Y-%m-01', day)";
+            case HOUR -> throw new IllegalArgumentException("Hourly revenue is not in the rollup");
+        };
+    }
+
+    /**
+     * Store-wide all-time and period totals and all-time units per category, as of a single
+     * snapshot of the database. Each product's all-time units and its units per day from
+     * {@code recentFrom} on are streamed to the visitors rather than collected, so the caller
+     * holds only what it keeps. Used to seed in-memory aggregates that are then kept current
+     * from {@link SaleEvents}.
+     */
+    public SalesTotals getSalesTotals(LocalDate periodStart, LocalDate periodEnd, LocalDate recentFrom,
+                                      UnitsVisitor allTimeUnits, Consumer<ProductDayUnits> recentUnits)
+            throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            // All reads in one transaction, so the id and the totals describe the same rows.
+            conn.setAutoCommit(false);
+            try {
+                int lastSaleId;
+                try (PreparedStatement stmt = conn.prepareStatement(LAST_SALE_ID);
+                     ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    lastSaleId = rs.getInt(1);
+                }
+                SalesTotals totals;
+                List<CategoryUnits> categories = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(UNITS_BY_CATEGORY)) {
+                    bindRange(stmt, 1, null, null);
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        categories.add(new CategoryUnits(rs.getString("category"), rs.getLong("units")));
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(KPIS)) {
+                    bindRange(stmt, 1, periodStart, periodEnd);
+                    bindRange(stmt, 3, periodStart, periodEnd);
+                    ResultSet rs = stmt.executeQuery();
+                    rs.next();
+                    totals = new SalesTotals(lastSaleId, rs.getLong("total_sales"), rs.getDouble("total_revenue"),
+                            rs.getLong("period_sales"), rs.getDouble("period_revenue"), categories);
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(PRODUCT_TOTAL_UNITS);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        allTimeUnits.accept(rs.getInt("product_id"), rs.getLong("units"));
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(PRODUCT_DAY_UNITS)) {
+                    stmt.setString(1, recentFrom.toString());
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        recentUnits.accept(new ProductDayUnits(LocalDate.parse(rs.getString("day")),
+                                rs.getInt("product_id"), rs.getLong("units")));
+                    }
+                }
+                conn.commit();
+                return totals;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Receives one product's units from {@link #getSalesTotals}.
+     */
+    @FunctionalInterface
+    public interface UnitsVisitor {
+        void accept(int productId, long units);
+    }
+
+    private static void bindRange(PreparedStatement stmt, int index, LocalDate from, LocalDate to) throws SQLException {
+        stmt.setString(index, from != null ? from.toString() : FIRST_DAY);
+        stmt.setString(index + 1, to != null ? to.toString() : LAST_DAY);
+    }
+
+    // Asynchronous counterparts, run on DaoExecutor's virtual threads.
+
+    public CompletableFuture<List<RevenuePoint>> getRevenueSeriesAsync(LocalDate from, LocalDate to, TimeBucket bucket) {
+        return DaoExecutor.supply(() -> getRevenueSeries(from, to, bucket));
+    }
+
+    public CompletableFuture<List<GrossMargin>> getGrossMarginsAsync(MarginDimension dimension, LocalDate from,
+                                                                     LocalDate to) {
+        return DaoExecutor.supply(() -> getGrossMargins(dimension, from, to));
+    }
+}
@@ -0,0 +1,16 @@
+package com.storeapp.dao;
+
+/**
+ * Outcome of a batched insert: the generated ids in input order and the achieved throughput.
+ */
+public record BatchResult(int rows, int[] generatedIds, long elapsedNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows in %.1f ms (%.0f rows/s)", rows, elapsedNanos / 1e6, rowsPerSecond());
+    }
+}
@@ -0,0 +1,24 @@
+package com.storeapp.dao;
+
+public record CacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        long expirations,
+        long invalidations,
+        int entries,
+        long rows,
+        long maxRows
+) {
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queryCache[entries=%d rows=%d/%d] hits=%d misses=%d ratio=%.1f%% evicted=%d "
+                        + "expired=%d invalidated=%d",
+                entries, rows, maxRows, hits, misses, hitRatio() * 100, evictions, expirations, invalidations);
+    }
+}
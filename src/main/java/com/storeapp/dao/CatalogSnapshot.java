@@ -0,0 +1,13 @@
+package com.storeapp.dao;
+
+import com.storeapp.model.Product;
+
+import java.util.List;
+
+/**
+ * Every product, in id order, as of catalog {@code version}. The list and its products are
+ * shared by all readers of the same version and must not be modified; a screen can skip
+ * redrawing when the version it last showed is unchanged.
+ */
+public record CatalogSnapshot(long version, List<Product> products) {
+}
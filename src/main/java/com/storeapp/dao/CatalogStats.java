@@ -0,0 +1,26 @@
+package com.storeapp.dao;
+
+public record CatalogStats(
+        long hits,
+        long misses,
+        long writes,
+        long staleWrites,
+        long invalidations,
+        long expirations,
+        int products,
+        boolean complete,
+        long version
+) {
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("productCatalog[products=%d%s version=%d] hits=%d misses=%d ratio=%.1f%% writes=%d "
+                        + "stale=%d invalidated=%d expired=%d",
+                products, complete ? "" : " partial", version, hits, misses, hitRatio() * 100, writes,
+                staleWrites, invalidations, expirations);
+    }
+}
@@ -0,0 +1,7 @@
+package com.storeapp.dao;
+
+/**
+ * Units sold across all products of one category.
+ */
+public record CategoryUnits(String category, long units) {
+}
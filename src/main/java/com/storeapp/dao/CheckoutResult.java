@@ -0,0 +1,26 @@
+package com.storeapp.dao;
+
+import com.storeapp.model.Sale;
+
+/**
+ * Outcome of a {@link CheckoutService} operation. {@code availableStock} is the product's
+ * quantity after the operation, or the quantity that blocked it.
+ */
+public record CheckoutResult(Status status, Sale sale, int availableStock) {
+
+    public enum Status {
+        COMPLETED,
+        REVERSED,
+        INSUFFICIENT_STOCK,
+        PRODUCT_NOT_FOUND,
+        SALE_NOT_FOUND
+    }
+
+    public boolean isSuccess() {
+        return status == Status.COMPLETED || status == Status.REVERSED;
+    }
+
+    static CheckoutResult failed(Status status, int availableStock) {
+        return new CheckoutResult(status, null, availableStock);
+    }
+}
@@ -0,0 +1,130 @@
+package com.storeapp.dao;
+
+import com.storeapp.db.Database;
+import com.storeapp.model.Product;
+import com.storeapp.model.Sale;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Records sales and their stock movements atomically. The stock check is the conditional
+ * {@code UPDATE ... WHERE quantity >= ?} itself, so concurrent tills cannot oversell or
+ * overwrite each other's decrements, and the sale insert commits or rolls back with it. The
+ * product row each commit left is written through to the {@link ProductCatalog} with a write
+ * sequence drawn before the commit, so a late write-through cannot undo a newer one.
+ */
+public class CheckoutService {
+
+    private static final String DECREMENT_STOCK =
+            "UPDATE products SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
+    private static final String INCREMENT_STOCK =
+            "UPDATE products SET quantity = quantity + ? WHERE id = ?";
+
+    private final SaleDAO saleDAO = new SaleDAO();
+
+    /**
+     * Sells {@code quantity} units of the product at its current selling price.
+     */
+    public CheckoutResult checkout(int productId, int quantity, int userId) throws SQLException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        ProductCatalog catalog = ProductCatalog.shared();
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int updated;
+                try (PreparedStatement stmt = conn.prepareStatement(DECREMENT_STOCK)) {
+                    stmt.setInt(1, quantity);
+                    stmt.setInt(2, productId);
+                    stmt.setInt(3, quantity);
+                    updated = stmt.executeUpdate();
+                }
+
+                Product product = ProductDAO.queryProductById(conn, productId);
+                if (product == null) {
+                    conn.rollback();
+                    return CheckoutResult.failed(CheckoutResult.Status.PRODUCT_NOT_FOUND, 0);
+                }
+                int stock = product.getQuantity();
+                if (updated == 0) {
+                    conn.rollback();
+                    return CheckoutResult.failed(CheckoutResult.Status.INSUFFICIENT_STOCK, stock);
+                }
+
+                Sale sale = new Sale(0, productId, quantity, product.getSellingPrice() * quantity,
+                        LocalDateTime.now(), userId);
+                sale.setProductName(product.getName());
+                sale.setCategory(product.getCategory());
+                saleDAO.insertSale(conn, sale);
+                long sequence = catalog.nextWriteSequence();
+                conn.commit();
+                catalog.put(product, sequence);
+                SaleEvents.added(sale);
+                return new CheckoutResult(CheckoutResult.Status.COMPLETED, sale, stock);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Deletes a sale and puts its units back in stock in the same transaction.
+     */
+    public CheckoutResult reverseSale(int saleId) throws SQLException {
+        ProductCatalog catalog = ProductCatalog.shared();
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Sale reversed = saleDAO.removeSale(conn, saleId);
+                if (reversed == null) {
+                    conn.rollback();
+                    return CheckoutResult.failed(CheckoutResult.Status.SALE_NOT_FOUND, 0);
+                }
+                int productId = reversed.getProductId();
+                int quantity = reversed.getQuantity();
+
+                try (PreparedStatement stmt = conn.prepareStatement(INCREMENT_STOCK)) {
+                    stmt.setInt(1, quantity);
+                    stmt.setInt(2, productId);
+                    stmt.executeUpdate();
+                }
+
+                int stock = 0;
+                Product product = ProductDAO.queryProductById(conn, productId);
+                if (product != null) {
+                    stock = product.getQuantity();
+                    reversed.setProductName(product.getName());
+                    reversed.setCategory(product.getCategory());
+                }
+                long sequence = catalog.nextWriteSequence();
+                conn.commit();
+                if (product != null) {
+                    catalog.put(product, sequence);
+                }
+                SaleEvents.deleted(reversed);
+                return new CheckoutResult(CheckoutResult.Status.REVERSED, reversed, stock);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    public CompletableFuture<CheckoutResult> checkoutAsync(int productId, int quantity, int userId) {
+        return DaoExecutor.supply(() -> checkout(productId, quantity, userId));
+    }
+
+    public CompletableFuture<CheckoutResult> reverseSaleAsync(int saleId) {
+        return DaoExecutor.supply(() -> reverseSale(saleId));
+    }
+}
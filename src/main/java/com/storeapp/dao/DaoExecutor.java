@@ -0,0 +1,49 @@
+package com.storeapp.dao;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs DAO calls off the caller's thread, one virtual thread per call. A call that waits on
+ * SQLite or for a pooled connection parks its virtual thread rather than a platform thread;
+ * the connection pool still bounds how many of them reach the database at once.
+ */
+public final class DaoExecutor {
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dao-", 0).factory());
+
+    private DaoExecutor() {}
+
+    /**
+     * Runs {@code task} on a virtual thread. A checked exception it throws (typically an
+     * {@code SQLException}) completes the future exceptionally, wrapped in a
+     * {@link CompletionException}.
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    static CompletableFuture<Void> run(SqlAction action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    interface SqlAction {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,12 @@
+package com.storeapp.dao;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * What changed at a day boundary, as published by {@link ExpiryAlerts}: the products whose
+ * expiry date has passed and those that came within the warning window since the previous
+ * sweep. The first sweep after startup reports everything already expired or expiring.
+ */
+public record ExpiryAlert(LocalDate day, List<ExpiryItem> expired, List<ExpiryItem> expiring) {
+}
@@ -0,0 +1,26 @@
+package com.storeapp.dao;
+
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for the day-boundary expiry sweeps of {@link ExpiryScheduler}, published on
+ * the scheduler's thread.
+ */
+public final class ExpiryAlerts {
+
+    private static final ListenerBus<ExpiryAlert> BUS = new ListenerBus<>("Expiry alert");
+
+    private ExpiryAlerts() {}
+
+    public static void subscribe(Consumer<ExpiryAlert> listener) {
+        BUS.subscribe(listener);
+    }
+
+    public static void unsubscribe(Consumer<ExpiryAlert> listener) {
+        BUS.unsubscribe(listener);
+    }
+
+    static void publish(ExpiryAlert alert) {
+        BUS.publish(alert);
+    }
+}
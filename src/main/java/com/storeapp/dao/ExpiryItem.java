@@ -0,0 +1,21 @@
+package com.storeapp.dao;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A product in stock that has an expiry date.
+ */
+public record ExpiryItem(int productId, String productName, String category, int quantity, LocalDate expiryDate) {
+
+    /**
+     * Days from {@code today} until the product expires; negative once it has.
+     */
+    public long daysLeft(LocalDate today) {
+        return ChronoUnit.DAYS.between(today, expiryDate);
+    }
+
+    public boolean isExpired(LocalDate today) {
+        return expiryDate.isBefore(today);
+    }
+}
@@ -0,0 +1,66 @@
+package com.storeapp.dao;
+
+import com.storeapp.model.Product;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The products in stock that have an expiry date, ordered by that date. A date range is read
+ * in O(log n + k) for k products, and each product write moves at most one entry. Products
+ * without stock are left out: there is nothing on the shelf to pull. Not thread-safe.
+ */
+final class ExpiryQueue {
+
+    private static final Comparator<ExpiryItem> SOONEST_FIRST =
+            Comparator.comparing(ExpiryItem::expiryDate).thenComparingInt(ExpiryItem::productId);
+
+    private final Map<Integer, ExpiryItem> byId = new HashMap<>();
+    private final TreeSet<ExpiryItem> ordered = new TreeSet<>(SOONEST_FIRST);
+
+    void update(Product product) {
+        remove(product.getId());
+        if (product.getExpiryDate() != null && product.getQuantity() > 0) {
+            ExpiryItem item = new ExpiryItem(product.getId(), product.getName(), product.getCategory(),
+                    product.getQuantity(), product.getExpiryDate());
+            byId.put(item.productId(), item);
+            ordered.add(item);
+        }
+    }
+
+    void remove(int productId) {
+        ExpiryItem previous = byId.remove(productId);
+        if (previous != null) {
+            ordered.remove(previous);
+        }
+    }
+
+    void retainAll(Set<Integer> productIds) {
+        byId.keySet().removeIf(productId -> !productIds.contains(productId));
+        ordered.removeIf(item -> !productIds.contains(item.productId()));
+    }
+
+    /**
+     * Products expiring on or after {@code from} and before {@code to}, soonest first; a
+     * {@code null} bound is open.
+     */
+    List<ExpiryItem> between(LocalDate from, LocalDate to) {
+        if (from != null && to != null) {
+            return from.isBefore(to) ? List.copyOf(ordered.subSet(bound(from), bound(to))) : List.of();
+        }
+        if (from != null) {
+            return List.copyOf(ordered.tailSet(bound(from)));
+        }
+        return List.copyOf(to != null ? ordered.headSet(bound(to)) : ordered);
+    }
+
+    // Sorts before every product expiring on day.
+    private static ExpiryItem bound(LocalDate day) {
+        return new ExpiryItem(Integer.MIN_VALUE, null, null, 0, day);
+    }
+}
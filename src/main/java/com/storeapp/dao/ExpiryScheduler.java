@@ -0,0 +1,103 @@
+package com.storeapp.dao;
+
+import com.storeapp.db.Database;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sweeps the catalog's expiry queue once at startup and then whenever the local date has
+ * changed, publishing to {@link ExpiryAlerts} the products that expired and those that came
+ * within {@code expiry.warningDays} since the previous sweep. Each sweep reads only the dates
+ * that changed, so a day missed while the machine slept is caught up by the next one. The
+ * thread looks at the date at least once a minute rather than sleeping until midnight, since
+ * sleeps stop counting while the machine is suspended. Product edits between sweeps are not
+ * announced; screens read the current lists from {@link ProductDAO}.
+ */
+public final class ExpiryScheduler {
+
+    private static final Object SHARED_LOCK = new Object();
+    private static ExpiryScheduler shared;
+
+    private static final Duration MAX_SLEEP = Duration.ofMinutes(1);
+
+    private final Clock clock;
+    private final int warningDays;
+    private final ProductDAO productDAO = new ProductDAO();
+
+    // Only touched by the sweeping thread.
+    private LocalDate lastSweep;
+
+    ExpiryScheduler(Clock clock, int warningDays) {
+        this.clock = clock;
+        this.warningDays = warningDays;
+    }
+
+    /**
+     * Starts the application-wide sweeps on a background thread, once.
+     */
+    public static void start() {
+        synchronized (SHARED_LOCK) {
+            if (shared == null) {
+                int warningDays;
+                try {
+                    warningDays = Database.getConfig().getExpiryWarningDays();
+                } catch (SQLException e) {
+                    System.err.println("Could not start expiry sweeps: " + e.getMessage());
+                    return;
+                }
+                shared = new ExpiryScheduler(Clock.systemDefaultZone(), warningDays);
+                shared.startSweeps();
+            }
+        }
+    }
+
+    private void startSweeps() {
+        Thread.ofVirtual().name("expiry-sweep").start(() -> {
+            while (true) {
+                LocalDateTime now = LocalDateTime.now(clock);
+                try {
+                    sweep(now.toLocalDate());
+                } catch (SQLException | RuntimeException e) {
+                    System.err.println("Expiry sweep failed: " + e.getMessage());
+                }
+                LocalDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay();
+                Duration untilMidnight = Duration.between(LocalDateTime.now(clock), midnight).plusSeconds(1);
+                try {
+                    Thread.sleep(untilMidnight.compareTo(MAX_SLEEP) < 0 ? untilMidnight : MAX_SLEEP);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Publishes what changed between the previous sweep and {@code today}, if anything did.
+     */
+    void sweep(LocalDate today) throws SQLException {
+        if (today.equals(lastSweep)) {
+            return;
+        }
+        LocalDate windowEnd = today.plusDays(warningDays + 1L);
+        List<ExpiryItem> expired;
+        List<ExpiryItem> expiring;
+        if (lastSweep == null) {
+            expired = productDAO.getExpiring(null, today);
+            expiring = productDAO.getExpiring(today, windowEnd);
+        } else {
+            // Already announced: everything before lastSweep, and its window up to lastWindowEnd.
+            LocalDate lastWindowEnd = lastSweep.plusDays(warningDays + 1L);
+            expired = productDAO.getExpiring(lastSweep, today);
+            expiring = productDAO.getExpiring(lastWindowEnd.isAfter(today) ? lastWindowEnd : today, windowEnd);
+        }
+        lastSweep = today;
+        if (!expired.isEmpty() || !expiring.isEmpty()) {
+            ExpiryAlerts.publish(new ExpiryAlert(today, expired, expiring));
+        }
+    }
+}
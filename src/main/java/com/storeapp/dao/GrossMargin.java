@@ -0,0 +1,19 @@
+package com.storeapp.dao;
+
+/**
+ * Revenue against the cost of the goods sold for one product, category, day or employee.
+ * Cost uses each sale's unit cost at the time of sale.
+ */
+public record GrossMargin(String group, long saleCount, long units, double revenue, double cost) {
+
+    public double grossProfit() {
+        return revenue - cost;
+    }
+
+    /**
+     * Gross profit as a percentage of revenue, or {@code NaN} without revenue.
+     */
+    public double marginPercent() {
+        return revenue != 0 ? grossProfit() * 100 / revenue : Double.NaN;
+    }
+}
@@ -0,0 +1,42 @@
+package com.storeapp.dao;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The listeners of one kind of in-process event. Listeners run synchronously on the publishing
+ * thread, in subscription order, and should return quickly; an exception thrown by one is
+ * reported and does not affect the others or the publisher.
+ */
+final class ListenerBus<T> {
+
+    private final String name;
+    private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * {@code name} labels failure reports, e.g. "Sale event".
+     */
+    ListenerBus(String name) {
+        this.name = name;
+    }
+
+    void subscribe(Consumer<T> listener) {
+        listeners.add(listener);
+    }
+
+    void unsubscribe(Consumer<T> listener) {
+        listeners.remove(listener);
+    }
+
+    void publish(T event) {
+        for (Consumer<T> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                System.err.println(name + " listener failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
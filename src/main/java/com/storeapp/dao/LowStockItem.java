@@ -0,0 +1,14 @@
+package com.storeapp.dao;
+
+/**
+ * A product whose stock is below its reorder point.
+ */
+public record LowStockItem(int productId, String productName, String category, int quantity, int reorderPoint) {
+
+    /**
+     * Units needed to reach the reorder point again.
+     */
+    public int shortfall() {
+        return reorderPoint - quantity;
+    }
+}
@@ -0,0 +1,90 @@
+package com.storeapp.dao;
+
+import com.storeapp.db.DatabaseConfig;
+import com.storeapp.model.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The products below their reorder point, ordered by shortfall, largest first. A product's
+ * reorder point is its own if set, else its category's, else the default. Each stock change
+ * moves at most one entry, in O(log n), and reports whether the product crossed its reorder
+ * point. Not thread-safe.
+ */
+final class LowStockTracker {
+
+    private static final Comparator<LowStockItem> MOST_SHORT_FIRST =
+            Comparator.comparingInt(LowStockItem::shortfall).reversed()
+                    .thenComparingInt(LowStockItem::quantity)
+                    .thenComparingInt(LowStockItem::productId);
+
+    private final int defaultReorderPoint;
+    private final Map<String, Integer> categoryReorderPoints;
+    private final Map<Integer, LowStockItem> byId = new HashMap<>();
+    private final TreeSet<LowStockItem> ordered = new TreeSet<>(MOST_SHORT_FIRST);
+
+    LowStockTracker(DatabaseConfig config) {
+        this.defaultReorderPoint = config.getDefaultReorderPoint();
+        this.categoryReorderPoints = config.getCategoryReorderPoints();
+    }
+
+    int reorderPoint(Product product) {
+        if (product.getReorderPoint() != null) {
+            return product.getReorderPoint();
+        }
+        return categoryReorderPoints.getOrDefault(product.getCategory(), defaultReorderPoint);
+    }
+
+    /**
+     * Records {@code product}'s current stock and reorder point. Returns the crossing this
+     * caused, or {@code null}.
+     */
+    StockAlert update(Product product) {
+        LowStockItem previous = byId.remove(product.getId());
+        if (previous != null) {
+            ordered.remove(previous);
+        }
+        int reorderPoint = reorderPoint(product);
+        LowStockItem item = new LowStockItem(product.getId(), product.getName(), product.getCategory(),
+                product.getQuantity(), reorderPoint);
+        if (product.getQuantity() < reorderPoint) {
+            byId.put(item.productId(), item);
+            ordered.add(item);
+            return previous == null ? new StockAlert(StockAlert.Type.LOW, item) : null;
+        }
+        return previous != null ? new StockAlert(StockAlert.Type.RESTOCKED, item) : null;
+    }
+
+    StockAlert remove(int productId) {
+        LowStockItem previous = byId.remove(productId);
+        if (previous == null) {
+            return null;
+        }
+        ordered.remove(previous);
+        return new StockAlert(StockAlert.Type.REMOVED, previous);
+    }
+
+    /**
+     * Forgets the products not in {@code productIds}, returning a {@code REMOVED} alert for
+     * each that was low.
+     */
+    List<StockAlert> retainAll(Set<Integer> productIds) {
+        List<StockAlert> alerts = new ArrayList<>();
+        for (Integer productId : List.copyOf(byId.keySet())) {
+            if (!productIds.contains(productId)) {
+                alerts.add(remove(productId));
+            }
+        }
+        return alerts;
+    }
+
+    List<LowStockItem> items() {
+        return List.copyOf(ordered);
+    }
+}
@@ -0,0 +1,22 @@
+package com.storeapp.dao;
+
+/**
+ * What {@link AnalyticsDAO#getGrossMargins} groups sales by.
+ */
+public enum MarginDimension {
+    PRODUCT("Product"),
+    CATEGORY("Category"),
+    DAY("Day"),
+    EMPLOYEE("Employee");
+
+    private final String label;
+
+    MarginDimension(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
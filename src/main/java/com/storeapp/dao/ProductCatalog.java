@@ -0,0 +1,332 @@
+package com.storeapp.dao;
+
+import com.storeapp.db.ConnectionPool;
+import com.storeapp.db.Database;
+import com.storeapp.model.Product;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The product table held in memory by id, so catalog reads cost no SQL once it is loaded.
+ * The first full read loads every product in one query; a single product read before that
+ * loads only its row. Writes go through: {@link ProductDAO} and {@link CheckoutService} store
+ * the row each transaction committed, and each write moves the catalog to a new version. The
+ * write-throughs of concurrent transactions can arrive out of order, so each carries a
+ * {@link #nextWriteSequence() sequence} drawn while its transaction held SQLite's write lock,
+ * and a row older than the one already stored for that product is dropped.
+ *
+ * <p>The first {@link #search} builds a {@link ProductSearchIndex} over the cached products,
+ * which the same writes then keep current. Once the whole table is loaded, a
+ * {@link LowStockTracker} follows every write too and publishes reorder-point crossings to
+ * {@link StockAlerts} after the catalog has been updated, and an {@link ExpiryQueue} keeps the
+ * dated products in stock in expiry order. Both outlive an invalidation or expiry and keep
+ * following writes; the next full load reconciles them with the table and publishes the
+ * crossings it finds.
+ *
+ * <p>A load that a write overlapped is returned but not kept, as in {@link QueryCache}.
+ * Product writes made outside the application are seen after {@link #invalidate()}, or once
+ * the catalog is {@code catalog.maxAgeSeconds} old, when the next read loads it again.
+ */
+public final class ProductCatalog {
+
+    private static final Object SHARED_LOCK = new Object();
+    private static ProductCatalog shared;
+
+    private final ConnectionPool pool;
+    private final long maxAgeNanos;
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    // All guarded by this. Cached products are never modified; a write replaces them.
+    private final TreeMap<Integer, Product> products = new TreeMap<>();
+    // Sequence of the last write stored per product; kept across reloads, one entry per
+    // product written since startup.
+    private final Map<Integer, Long> storedWrites = new HashMap<>();
+    private boolean complete;
+    private long filledAt;
+    private long version;
+    private CatalogSnapshot snapshot;
+    private ProductSearchIndex searchIndex;
+    private LowStockTracker lowStock;
+    private ExpiryQueue expiry;
+    private long hits;
+    private long misses;
+    private long writes;
+    private long invalidations;
+    private long expirations;
+    private long staleWrites;
+
+    private ProductCatalog(ConnectionPool pool) {
+        this.pool = pool;
+        this.maxAgeNanos = pool.getConfig().getCatalogMaxAgeSeconds() * 1_000_000_000L;
+    }
+
+    /**
+     * The catalog for the current database; {@link Database#configure} starts a new one.
+     */
+    public static ProductCatalog shared() throws SQLException {
+        ConnectionPool current = Database.getPool();
+        synchronized (SHARED_LOCK) {
+            if (shared == null || shared.pool != current) {
+                shared = new ProductCatalog(current);
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * Every product, loading the table with {@code loader} if it is not all cached.
+     */
+    CatalogSnapshot snapshot(QueryCache.Loader<List<Product>> loader) throws SQLException {
+        long startedAt;
+        synchronized (this) {
+            expireIfOld();
+            if (complete) {
+                hits++;
+                return currentSnapshot();
+            }
+            misses++;
+            startedAt = version;
+        }
+        List<Product> loaded = loader.load();
+        List<StockAlert> alerts = new ArrayList<>();
+        CatalogSnapshot kept = null;
+        synchronized (this) {
+            if (version == startedAt) {
+                products.clear();
+                filledAt = System.nanoTime();
+                // On a reload the tracker already holds the state announced so far, so the
+                // crossings since then, including writes made while the catalog was expired,
+                // are published now. The first load announces nothing.
+                boolean reload = lowStock != null;
+                if (!reload) {
+                    lowStock = new LowStockTracker(pool.getConfig());
+                    expiry = new ExpiryQueue();
+                }
+                for (Product product : loaded) {
+                    products.put(product.getId(), product);
+                    StockAlert alert = lowStock.update(product);
+                    if (alert != null && reload) {
+                        alerts.add(alert);
+                    }
+                    expiry.update(product);
+                }
+                alerts.addAll(lowStock.retainAll(products.keySet()));
+                expiry.retainAll(products.keySet());
+                complete = true;
+                kept = currentSnapshot();
+            }
+        }
+        alerts.forEach(StockAlerts::publish);
+        return kept != null ? kept : new CatalogSnapshot(startedAt, List.copyOf(loaded));
+    }
+
+    /**
+     * Product {@code id}, or {@code null} if there is none, reading its row with
+     * {@code loader} if it is not cached.
+     */
+    Product get(int id, QueryCache.Loader<Product> loader) throws SQLException {
+        long startedAt;
+        synchronized (this) {
+            expireIfOld();
+            Product product = products.get(id);
+            if (product != null || complete) {
+                hits++;
+                return product;
+            }
+            misses++;
+            startedAt = version;
+        }
+        Product loaded = loader.load();
+        synchronized (this) {
+            if (loaded != null && version == startedAt) {
+                store(loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Ids of the products whose name, category or supplier contains {@code query}, ignoring
+     * case, in id order.
+     */
+    List<Integer> search(String query, QueryCache.Loader<List<Product>> loader) throws SQLException {
+        CatalogSnapshot catalog = snapshot(loader);
+        synchronized (this) {
+            if (complete) {
+                if (searchIndex == null) {
+                    searchIndex = new ProductSearchIndex();
+                    products.values().forEach(searchIndex::add);
+                }
+                return searchIndex.search(query);
+            }
+        }
+        // A write overlapped the load, so the catalog was not kept; search what was read.
+        ProductSearchIndex once = new ProductSearchIndex();
+        catalog.products().forEach(once::add);
+        return once.search(query);
+    }
+
+    /**
+     * The products below their reorder point, largest shortfall first.
+     */
+    List<LowStockItem> lowStock(QueryCache.Loader<List<Product>> loader) throws SQLException {
+        CatalogSnapshot catalog = snapshot(loader);
+        synchronized (this) {
+            if (complete) {
+                return lowStock.items();
+            }
+        }
+        LowStockTracker once = new LowStockTracker(pool.getConfig());
+        catalog.products().forEach(once::update);
+        return once.items();
+    }
+
+    /**
+     * The products in stock expiring on or after {@code from} and before {@code to}, soonest
+     * first; a {@code null} bound is open.
+     */
+    List<ExpiryItem> expiring(LocalDate from, LocalDate to, QueryCache.Loader<List<Product>> loader)
+            throws SQLException {
+        CatalogSnapshot catalog = snapshot(loader);
+        synchronized (this) {
+            if (complete) {
+                return expiry.between(from, to);
+            }
+        }
+        ExpiryQueue once = new ExpiryQueue();
+        catalog.products().forEach(once::update);
+        return once.between(from, to);
+    }
+
+    /**
+     * The sequence for a product write. Draw it inside the writing transaction after its first
+     * write statement: SQLite lets one transaction write at a time, so sequences drawn then
+     * follow commit order.
+     */
+    long nextWriteSequence() {
+        return writeSequence.incrementAndGet();
+    }
+
+    /**
+     * Stores a copy of {@code product}, the row as the write with {@code sequence} committed
+     * it, unless a later write to the product was already stored.
+     */
+    void put(Product product, long sequence) {
+        Product copy = new Product(product);
+        StockAlert alert;
+        synchronized (this) {
+            if (isStale(product.getId(), sequence)) {
+                return;
+            }
+            store(copy);
+            if (searchIndex != null) {
+                searchIndex.add(copy);
+            }
+            alert = lowStock != null ? lowStock.update(copy) : null;
+            if (expiry != null) {
+                expiry.update(copy);
+            }
+            changed();
+        }
+        publish(alert);
+    }
+
+    /**
+     * Forgets product {@code id}, which the write with {@code sequence} deleted, unless a later
+     * write to it was already stored.
+     */
+    void remove(int id, long sequence) {
+        StockAlert alert;
+        synchronized (this) {
+            if (isStale(id, sequence)) {
+                return;
+            }
+            products.remove(id);
+            if (searchIndex != null) {
+                searchIndex.remove(id);
+            }
+            alert = lowStock != null ? lowStock.remove(id) : null;
+            if (expiry != null) {
+                expiry.remove(id);
+            }
+            changed();
+        }
+        publish(alert);
+    }
+
+    private boolean isStale(int id, long sequence) {
+        Long stored = storedWrites.get(id);
+        if (stored != null && stored > sequence) {
+            staleWrites++;
+            return true;
+        }
+        storedWrites.put(id, sequence);
+        return false;
+    }
+
+    private void store(Product product) {
+        if (products.isEmpty()) {
+            filledAt = System.nanoTime();
+        }
+        products.put(product.getId(), product);
+    }
+
+    private static void publish(StockAlert alert) {
+        if (alert != null) {
+            StockAlerts.publish(alert);
+        }
+    }
+
+    /**
+     * Forgets every product, e.g. after a bulk import or an edit made outside the application;
+     * the next read loads the table again.
+     */
+    public synchronized void invalidate() {
+        clear();
+        invalidations++;
+    }
+
+    private void expireIfOld() {
+        if (maxAgeNanos > 0 && !products.isEmpty() && System.nanoTime() - filledAt >= maxAgeNanos) {
+            clear();
+            expirations++;
+        }
+    }
+
+    private void clear() {
+        products.clear();
+        complete = false;
+        searchIndex = null;
+        version++;
+        snapshot = null;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized CatalogStats getStats() {
+        return new CatalogStats(hits, misses, writes, staleWrites, invalidations, expirations, products.size(),
+                complete, version);
+    }
+
+    private void changed() {
+        writes++;
+        version++;
+        snapshot = null;
+    }
+
+    private CatalogSnapshot currentSnapshot() {
+        if (snapshot == null) {
+            snapshot = new CatalogSnapshot(version, List.copyOf(products.values()));
+        }
+        return snapshot;
+    }
+}
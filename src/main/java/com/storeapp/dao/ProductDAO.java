@@ -4,17 +4,118 @@ import com.storeapp.db.Database;
 import com.storeapp.model.Product;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Product reads are answered from the {@link ProductCatalog} once it is loaded; writes update
+ * the database and then the catalog. Returned products are copies the caller may modify.
+ * {@link #search} is the exception: it ranks matches with the {@code products_fts} full-text
+ * index in the database.
+ */
 public class ProductDAO {
 
+    private static final String SELECT_PRODUCT = "SELECT * FROM products WHERE id = ?";
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (name, description, cost_price, selling_price, quantity, category, supplier, expiry_date, reorder_point) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // "supplier IS ?" so rows without a supplier still match each other.
+    private static final String UPDATE_BY_NATURAL_KEY =
+            "UPDATE products SET description = ?, cost_price = ?, selling_price = ?, quantity = ?, category = ?, expiry_date = ? "
+                    + "WHERE name = ? AND supplier IS ?";
+    // bm25 weights per column, in table order: a hit in the name counts most, then category,
+    // supplier and description.
+    private static final String FULL_TEXT_SEARCH =
+            "SELECT p.* FROM products_fts JOIN products p ON p.id = products_fts.rowid "
+                    + "WHERE products_fts MATCH ? ORDER BY bm25(products_fts, 10.0, 1.0, 4.0, 2.0), p.id LIMIT ?";
+    // A double-quoted phrase, or a run of letters and digits.
+    private static final Pattern SEARCH_TERM = Pattern.compile("\"([^\"]*)\"|[\\p{L}\\p{N}]+");
+
     public List<Product> getAllProducts() throws SQLException {
+        List<Product> cached = getCatalogSnapshot().products();
+        List<Product> products = new ArrayList<>(cached.size());
+        for (Product product : cached) {
+            products.add(new Product(product));
+        }
+        return products;
+    }
+
+    /**
+     * The whole catalog without copying, for screens that only display it.
+     */
+    public CatalogSnapshot getCatalogSnapshot() throws SQLException {
+        return ProductCatalog.shared().snapshot(this::queryAllProducts);
+    }
+
+    /**
+     * Ids of the products whose name, category or supplier contains {@code query}, ignoring
+     * case, in id order. Answered from the catalog's trigram index without SQL.
+     */
+    public List<Integer> searchProductIds(String query) throws SQLException {
+        return ProductCatalog.shared().search(query, this::queryAllProducts);
+    }
+
+    /**
+     * Full-text search of name, description, category and supplier in the database, best
+     * match first, at most {@code limit} products. Every word must match the start of a word
+     * ({@code chedd} finds "Cheddar"); text in double quotes must match as a phrase. Case and
+     * accents are ignored. Unlike {@link #searchProductIds} this needs no loaded catalog, so
+     * reports and tools can use it.
+     */
+    public List<Product> search(String query, int limit) throws SQLException {
+        String match = toMatchQuery(query);
+        List<Product> products = new ArrayList<>();
+        if (match.isEmpty() || limit <= 0) {
+            return products;
+        }
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FULL_TEXT_SEARCH)) {
+            stmt.setString(1, match);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                products.add(extractProduct(rs));
+            }
+        }
+        return products;
+    }
+
+    /**
+     * The FTS5 query for search box text. Each term is quoted, so FTS5 operators and
+     * punctuation in the input are matched as text rather than parsed; the terms are ANDed.
+     */
+    static String toMatchQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        Matcher terms = SEARCH_TERM.matcher(text);
+        while (terms.find()) {
+            String phrase = terms.group(1);
+            if (phrase != null && phrase.isBlank()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (phrase != null) {
+                match.append('"').append(phrase.trim()).append('"');
+            } else {
+                match.append('"').append(terms.group()).append("\"*");
+            }
+        }
+        return match.toString();
+    }
+
+    private List<Product> queryAllProducts() throws SQLException {
         List<Product> products = new ArrayList<>();
-        String query = "SELECT * FROM products";
+        String query = "SELECT * FROM products ORDER BY id";
         try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 products.add(extractProduct(rs));
             }
@@ -22,9 +123,9 @@ public class ProductDAO {
         return products;
     }
 
-    private Product extractProduct(ResultSet rs) throws SQLException {
+    static Product extractProduct(ResultSet rs) throws SQLException {
         Date expiryDate = rs.getDate("expiry_date");
-        return new Product(
+        Product product = new Product(
             rs.getInt("id"),
             rs.getString("name"),
             rs.getString("description"),
@@ -35,12 +136,24 @@ public class ProductDAO {
             rs.getString("supplier"),
             expiryDate != null ? expiryDate.toLocalDate() : null
         );
+        int reorderPoint = rs.getInt("reorder_point");
+        product.setReorderPoint(rs.wasNull() ? null : reorderPoint);
+        return product;
     }
 
     public Product getProductById(int id) throws SQLException {
-        String query = "SELECT * FROM products WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+        Product product = ProductCatalog.shared().get(id, () -> queryProductById(id));
+        return product != null ? new Product(product) : null;
+    }
+
+    private Product queryProductById(int id) throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            return queryProductById(conn, id);
+        }
+    }
+
+    static Product queryProductById(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_PRODUCT)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -50,45 +163,301 @@ public class ProductDAO {
         return null;
     }
 
+    /**
+     * Inserts the product and sets its generated id.
+     */
     public void addProduct(Product product) throws SQLException {
-        String query = "INSERT INTO products (name, description, cost_price, selling_price, quantity, category, supplier, expiry_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, product.getName());
-            stmt.setString(2, product.getDescription());
-            stmt.setDouble(3, product.getCostPrice());
-            stmt.setDouble(4, product.getSellingPrice());
-            stmt.setInt(5, product.getQuantity());
-            stmt.setString(6, product.getCategory());
-            stmt.setString(7, product.getSupplier());
-            stmt.setDate(8, product.getExpiryDate() != null ? Date.valueOf(product.getExpiryDate()) : null);
-            stmt.executeUpdate();
+        ProductCatalog catalog = ProductCatalog.shared();
+        long sequence;
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
+                    bindProduct(stmt, product);
+                    stmt.executeUpdate();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            product.setId(keys.getInt(1));
+                        }
+                    }
+                }
+                sequence = catalog.nextWriteSequence();
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
+        catalog.put(product, sequence);
     }
 
     public void updateProduct(Product product) throws SQLException {
-        String query = "UPDATE products SET name = ?, description = ?, cost_price = ?, selling_price = ?, quantity = ?, category = ?, supplier = ?, expiry_date = ? WHERE id = ?";
+        String query = "UPDATE products SET name = ?, description = ?, cost_price = ?, selling_price = ?, quantity = ?, category = ?, supplier = ?, expiry_date = ?, reorder_point = ? WHERE id = ?";
+        ProductCatalog catalog = ProductCatalog.shared();
+        boolean updated;
+        long sequence;
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    stmt.setString(1, product.getName());
+                    stmt.setString(2, product.getDescription());
+                    stmt.setDouble(3, product.getCostPrice());
+                    stmt.setDouble(4, product.getSellingPrice());
+                    stmt.setInt(5, product.getQuantity());
+                    stmt.setString(6, product.getCategory());
+                    stmt.setString(7, product.getSupplier());
+                    stmt.setDate(8, product.getExpiryDate() != null ? Date.valueOf(product.getExpiryDate()) : null);
+                    stmt.setObject(9, product.getReorderPoint(), Types.INTEGER);
+                    stmt.setInt(10, product.getId());
+                    updated = stmt.executeUpdate() > 0;
+                }
+                sequence = catalog.nextWriteSequence();
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        if (updated) {
+            catalog.put(product, sequence);
+        } else {
+            catalog.remove(product.getId(), sequence);
+        }
+        QueryCache.shared().productChanged(product.getId());
+    }
+
+    /**
+     * Inserts or updates products matched on their natural key (name, supplier) in one
+     * transaction: a batched UPDATE first, then a batched INSERT of the rows it did not match.
+     * The caller must not pass the same key twice in one call.
+     */
+    public UpsertResult upsertProducts(List<Product> products) throws SQLException {
+        if (products.isEmpty()) {
+            return new UpsertResult(0, 0);
+        }
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int[] matched;
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_BY_NATURAL_KEY)) {
+                    for (Product product : products) {
+                        stmt.setString(1, product.getDescription());
+                        stmt.setDouble(2, product.getCostPrice());
+                        stmt.setDouble(3, product.getSellingPrice());
+                        stmt.setInt(4, product.getQuantity());
+                        stmt.setString(5, product.getCategory());
+                        stmt.setDate(6, product.getExpiryDate() != null ? Date.valueOf(product.getExpiryDate()) : null);
+                        stmt.setString(7, product.getName());
+                        stmt.setString(8, product.getSupplier());
+                        stmt.addBatch();
+                    }
+                    matched = stmt.executeBatch();
+                }
+
+                int inserted = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(INSERT_PRODUCT)) {
+                    for (int i = 0; i < matched.length; i++) {
+                        if (matched[i] == 0) {
+                            bindProduct(stmt, products.get(i));
+                            stmt.addBatch();
+                            inserted++;
+                        }
+                    }
+                    if (inserted > 0) {
+                        stmt.executeBatch();
+                    }
+                }
+                conn.commit();
+                // The ids of matched and inserted rows are not known here.
+                ProductCatalog.shared().invalidate();
+                if (inserted < products.size()) {
+                    QueryCache.shared().productsChanged();
+                }
+                return new UpsertResult(inserted, products.size() - inserted);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void bindProduct(PreparedStatement stmt, Product product) throws SQLException {
+        stmt.setString(1, product.getName());
+        stmt.setString(2, product.getDescription());
+        stmt.setDouble(3, product.getCostPrice());
+        stmt.setDouble(4, product.getSellingPrice());
+        stmt.setInt(5, product.getQuantity());
+        stmt.setString(6, product.getCategory());
+        stmt.setString(7, product.getSupplier());
+        stmt.setDate(8, product.getExpiryDate() != null ? Date.valueOf(product.getExpiryDate()) : null);
+        stmt.setObject(9, product.getReorderPoint(), Types.INTEGER);
+    }
+
+    /**
+     * Sets product {@code id}'s own reorder point; {@code null} goes back to its category's or
+     * the default.
+     */
+    public void setReorderPoint(int id, Integer reorderPoint) throws SQLException {
+        ProductCatalog catalog = ProductCatalog.shared();
+        Product written;
+        long sequence;
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement("UPDATE products SET reorder_point = ? WHERE id = ?")) {
+                    stmt.setObject(1, reorderPoint, Types.INTEGER);
+                    stmt.setInt(2, id);
+                    stmt.executeUpdate();
+                }
+                written = queryProductById(conn, id);
+                sequence = catalog.nextWriteSequence();
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        if (written != null) {
+            catalog.put(written, sequence);
+        } else {
+            catalog.remove(id, sequence);
+        }
+    }
+
+    /**
+     * Products below their reorder point, largest shortfall first, from the catalog's
+     * low-stock tracker.
+     */
+    public List<LowStockItem> getLowStock() throws SQLException {
+        return ProductCatalog.shared().lowStock(this::queryAllProducts);
+    }
+
+    /**
+     * Products in stock expiring on or after {@code from} and before {@code to}, soonest first,
+     * from the catalog's expiry queue; a {@code null} bound is open.
+     */
+    public List<ExpiryItem> getExpiring(LocalDate from, LocalDate to) throws SQLException {
+        return ProductCatalog.shared().expiring(from, to, this::queryAllProducts);
+    }
+
+    /**
+     * Products in stock whose expiry date is before today.
+     */
+    public List<ExpiryItem> getExpiredProducts() throws SQLException {
+        return getExpiring(null, LocalDate.now());
+    }
+
+    /**
+     * Products in stock expiring between today and {@code days} days from now, inclusive.
+     */
+    public List<ExpiryItem> getExpiringProducts(int days) throws SQLException {
+        LocalDate today = LocalDate.now();
+        return getExpiring(today, today.plusDays(days + 1L));
+    }
+
+    /**
+     * {@link #getExpiring} read from the database through the {@code idx_products_expiry}
+     * index, for reports and tools that do not load the catalog.
+     */
+    public List<ExpiryItem> queryExpiring(LocalDate from, LocalDate to) throws SQLException {
+        // Dates are bound the way bindProduct writes them, so they compare as stored.
+        StringBuilder query = new StringBuilder(
+                "SELECT id, name, category, quantity, expiry_date FROM products WHERE expiry_date IS NOT NULL");
+        if (from != null) {
+            query.append(" AND expiry_date >= ?");
+        }
+        if (to != null) {
+            query.append(" AND expiry_date < ?");
+        }
+        query.append(" AND quantity > 0 ORDER BY expiry_date, id");
+
+        List<ExpiryItem> items = new ArrayList<>();
         try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, product.getName());
-            stmt.setString(2, product.getDescription());
-            stmt.setDouble(3, product.getCostPrice());
-            stmt.setDouble(4, product.getSellingPrice());
-            stmt.setInt(5, product.getQuantity());
-            stmt.setString(6, product.getCategory());
-            stmt.setString(7, product.getSupplier());
-            stmt.setDate(8, product.getExpiryDate() != null ? Date.valueOf(product.getExpiryDate()) : null);
-            stmt.setInt(9, product.getId());
-            stmt.executeUpdate();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int index = 1;
+            if (from != null) {
+                stmt.setDate(index++, Date.valueOf(from));
+            }
+            if (to != null) {
+                stmt.setDate(index, Date.valueOf(to));
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                items.add(new ExpiryItem(rs.getInt("id"), rs.getString("name"), rs.getString("category"),
+                        rs.getInt("quantity"), rs.getDate("expiry_date").toLocalDate()));
+            }
         }
+        return items;
     }
 
     public void deleteProduct(int id) throws SQLException {
         String query = "DELETE FROM products WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+        ProductCatalog catalog = ProductCatalog.shared();
+        long sequence;
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    stmt.setInt(1, id);
+                    stmt.executeUpdate();
+                }
+                sequence = catalog.nextWriteSequence();
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
+        catalog.remove(id, sequence);
+        QueryCache.shared().productChanged(id);
+    }
+
+    // Asynchronous counterparts, run on DaoExecutor's virtual threads.
+
+    public CompletableFuture<List<Product>> getAllProductsAsync() {
+        return DaoExecutor.supply(this::getAllProducts);
+    }
+
+    public CompletableFuture<CatalogSnapshot> getCatalogSnapshotAsync() {
+        return DaoExecutor.supply(this::getCatalogSnapshot);
+    }
+
+    public CompletableFuture<List<Integer>> searchProductIdsAsync(String query) {
+        return DaoExecutor.supply(() -> searchProductIds(query));
+    }
+
+    public CompletableFuture<List<LowStockItem>> getLowStockAsync() {
+        return DaoExecutor.supply(this::getLowStock);
+    }
+
+    public CompletableFuture<List<ExpiryItem>> getExpiredProductsAsync() {
+        return DaoExecutor.supply(this::getExpiredProducts);
+    }
+
+    public CompletableFuture<List<ExpiryItem>> getExpiringProductsAsync(int days) {
+        return DaoExecutor.supply(() -> getExpiringProducts(days));
+    }
+
+    public CompletableFuture<Void> addProductAsync(Product product) {
+        return DaoExecutor.run(() -> addProduct(product));
+    }
+
+    public CompletableFuture<Void> updateProductAsync(Product product) {
+        return DaoExecutor.run(() -> updateProduct(product));
+    }
+
+    public CompletableFuture<Void> deleteProductAsync(int id) {
+        return DaoExecutor.run(() -> deleteProduct(id));
     }
 }
@@ -0,0 +1,9 @@
+package com.storeapp.dao;
+
+import java.time.LocalDate;
+
+/**
+ * Units of one product sold on one day.
+ */
+public record ProductDayUnits(LocalDate day, int productId, long units) {
+}
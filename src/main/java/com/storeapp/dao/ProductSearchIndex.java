@@ -0,0 +1,164 @@
+package com.storeapp.dao;
+
+import com.storeapp.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive substring search over product name, category and supplier, backed by a
+ * trigram inverted index. Each product's fields are lowercased once, when it is added; a query
+ * of three or more characters reads only the ids under its rarest trigram and confirms each one
+ * against the stored text, so its cost follows the number of candidates rather than the
+ * catalog size. One- and two-character queries match most of a catalog anyway and scan the
+ * stored text. Adding a product again replaces it and only touches the trigrams that changed.
+ * Not thread-safe.
+ */
+final class ProductSearchIndex {
+
+    // Joins the fields so that no trigram and no match spans two of them.
+    private static final char SEPARATOR = '\0';
+    private static final int GRAM = 3;
+
+    private final Map<Integer, String> texts = new HashMap<>();
+    private final Map<Long, IdList> postings = new HashMap<>();
+
+    void add(Product product) {
+        int id = product.getId();
+        String text = normalize(product.getName()) + SEPARATOR + normalize(product.getCategory())
+                + SEPARATOR + normalize(product.getSupplier());
+        String previous = texts.put(id, text);
+        long[] added = grams(text);
+        long[] removed = previous != null ? grams(previous) : new long[0];
+        // Both are sorted: walk them together and skip the trigrams the texts share.
+        int i = 0;
+        int j = 0;
+        while (i < added.length || j < removed.length) {
+            if (j == removed.length || (i < added.length && added[i] < removed[j])) {
+                postings.computeIfAbsent(added[i++], key -> new IdList()).add(id);
+            } else if (i == added.length || removed[j] < added[i]) {
+                unpost(removed[j++], id);
+            } else {
+                i++;
+                j++;
+            }
+        }
+    }
+
+    void remove(int id) {
+        String text = texts.remove(id);
+        if (text != null) {
+            for (long gram : grams(text)) {
+                unpost(gram, id);
+            }
+        }
+    }
+
+    private void unpost(long gram, int id) {
+        IdList ids = postings.get(gram);
+        if (ids != null && ids.remove(id) && ids.size == 0) {
+            postings.remove(gram);
+        }
+    }
+
+    /**
+     * Ids of the products with {@code query} in a field, in id order; every id for a blank
+     * query.
+     */
+    List<Integer> search(String query) {
+        String needle = normalize(query).trim();
+        List<Integer> matches = new ArrayList<>();
+        if (needle.length() < GRAM) {
+            for (Map.Entry<Integer, String> entry : texts.entrySet()) {
+                if (entry.getValue().contains(needle)) {
+                    matches.add(entry.getKey());
+                }
+            }
+            matches.sort(null);
+            return matches;
+        }
+
+        IdList rarest = null;
+        for (long gram : grams(needle)) {
+            IdList ids = postings.get(gram);
+            if (ids == null) {
+                return matches;
+            }
+            if (rarest == null || ids.size < rarest.size) {
+                rarest = ids;
+            }
+        }
+        for (int i = 0; i < rarest.size; i++) {
+            int id = rarest.ids[i];
+            if (texts.get(id).contains(needle)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+
+    private static String normalize(String field) {
+        return field != null ? field.toLowerCase(Locale.ROOT).replace(SEPARATOR, ' ') : "";
+    }
+
+    /**
+     * The distinct trigrams of {@code text}, each packed into a long, in ascending order.
+     */
+    private static long[] grams(String text) {
+        long[] grams = new long[Math.max(0, text.length() - GRAM + 1)];
+        int n = 0;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            char a = text.charAt(i);
+            char b = text.charAt(i + 1);
+            char c = text.charAt(i + 2);
+            if (a != SEPARATOR && b != SEPARATOR && c != SEPARATOR) {
+                grams[n++] = ((long) a << 32) | ((long) b << 16) | c;
+            }
+        }
+        Arrays.sort(grams, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Sorted product ids. Ids are assigned in increasing order, so adds are nearly always
+     * appends.
+     */
+    private static final class IdList {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
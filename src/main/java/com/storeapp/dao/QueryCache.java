@@ -0,0 +1,258 @@
+package com.storeapp.dao;
+
+import com.storeapp.db.ConnectionPool;
+import com.storeapp.db.Database;
+import com.storeapp.db.DatabaseConfig;
+import com.storeapp.model.Sale;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Results of read-only DAO queries, keyed by query, time range and remaining arguments, so a
+ * screen or export asking the same question again is answered from memory. Entries are
+ * weighed in result rows; the least recently used go once the total passes
+ * {@code cache.maxRows}, and every entry expires {@code cache.ttlSeconds} after it was loaded.
+ *
+ * <p>Writes only drop what they can have changed. A sale (via {@link SaleEvents}) removes the
+ * entries whose range contains its time; a product write removes the entries that show that
+ * product's details. A load that a write overlapped while it ran is returned but not stored.
+ * Writes made outside the application are only seen after the TTL.
+ */
+public final class QueryCache {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final Object SHARED_LOCK = new Object();
+    private static QueryCache shared;
+
+    private final ConnectionPool pool;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final Consumer<SaleEvent> saleListener = event -> saleChanged(event.sale());
+
+    // All guarded by this.
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Load> loads = new ArrayList<>();
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    private QueryCache(ConnectionPool pool, long maxWeight, long ttlMillis) {
+        this.pool = pool;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis * 1_000_000;
+    }
+
+    /**
+     * The cache for the current database. {@link Database#configure} starts a new one, so
+     * results never leak between database files.
+     */
+    public static QueryCache shared() throws SQLException {
+        ConnectionPool current = Database.getPool();
+        synchronized (SHARED_LOCK) {
+            if (shared == null || shared.pool != current) {
+                if (shared != null) {
+                    SaleEvents.unsubscribe(shared.saleListener);
+                }
+                DatabaseConfig config = current.getConfig();
+                shared = new QueryCache(current, config.getQueryCacheMaxRows(),
+                        config.getQueryCacheTtlSeconds() * 1000);
+                SaleEvents.subscribe(shared.saleListener);
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * The cached result for {@code key}, or the result of {@code loader}, stored if caching is
+     * enabled. {@code products} names the product ids whose details the result shows: an
+     * empty set if it shows none, {@code null} if it may depend on any product.
+     */
+    <T> T get(Key key, Loader<T> loader, Function<? super T, Set<Integer>> products) throws SQLException {
+        Load load;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt < ttlNanos) {
+                    hits++;
+                    @SuppressWarnings("unchecked")
+                    T value = (T) entry.value;
+                    return value;
+                }
+                remove(key);
+                expirations++;
+            }
+            misses++;
+            if (maxWeight <= 0 || ttlNanos <= 0) {
+                load = null;
+            } else {
+                load = new Load(key);
+                loads.add(load);
+            }
+        }
+        if (load == null) {
+            return loader.load();
+        }
+
+        T value;
+        try {
+            value = loader.load();
+        } finally {
+            synchronized (this) {
+                loads.remove(load);
+            }
+        }
+        long rows = value instanceof Collection<?> collection ? collection.size() + 1 : 1;
+        Set<Integer> dependsOn = products.apply(value);
+        synchronized (this) {
+            if (!load.stale && rows <= maxWeight) {
+                Entry previous = entries.put(key, new Entry(value, rows, System.nanoTime(), dependsOn));
+                weight += rows - (previous != null ? previous.weight : 0);
+                evictOverflow();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops the entries whose time range contains {@code sale}'s.
+     */
+    synchronized void saleChanged(Sale sale) {
+        long time = sale.getSaleDate() != null ? toMillis(sale.getSaleDate()) : System.currentTimeMillis();
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> entry = it.next();
+            if (entry.getKey().covers(time)) {
+                weight -= entry.getValue().weight;
+                it.remove();
+                invalidations++;
+            }
+        }
+        for (Load load : loads) {
+            if (load.key.covers(time)) {
+                load.stale = true;
+            }
+        }
+    }
+
+    /**
+     * Drops the entries that show product {@code productId}'s details.
+     */
+    synchronized void productChanged(int productId) {
+        dropProducts(products -> products == null || products.contains(productId));
+    }
+
+    /**
+     * Drops every entry that shows any product's details, for writes that do not know which
+     * rows they changed.
+     */
+    synchronized void productsChanged() {
+        dropProducts(products -> products == null || !products.isEmpty());
+    }
+
+    private void dropProducts(Predicate<Set<Integer>> affected) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (affected.test(entry.products)) {
+                weight -= entry.weight;
+                it.remove();
+                invalidations++;
+            }
+        }
+        // A load in flight does not know its products yet.
+        for (Load load : loads) {
+            load.stale = true;
+        }
+    }
+
+    /**
+     * Empties the cache, e.g. after a bulk change such as a rollup rebuild.
+     */
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+        weight = 0;
+        for (Load load : loads) {
+            load.stale = true;
+        }
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, expirations, invalidations, entries.size(), weight,
+                maxWeight);
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= it.next().weight;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    /**
+     * A query and its arguments, with the time range it reads normalised to half-open epoch
+     * milliseconds. Timestamps are cut to milliseconds, as stored, so equal ranges share an
+     * entry however they were written.
+     */
+    record Key(String query, long from, long to, List<Object> args) {
+
+        /**
+         * Days {@code from} to {@code to} inclusive; a {@code null} bound is open.
+         */
+        static Key days(String query, LocalDate from, LocalDate to, Object... args) {
+            return new Key(query, from != null ? toMillis(from.atStartOfDay()) : Long.MIN_VALUE,
+                    to != null ? toMillis(to.plusDays(1).atStartOfDay()) : Long.MAX_VALUE, Arrays.asList(args));
+        }
+
+        boolean covers(long time) {
+            return time >= from && time < to;
+        }
+    }
+
+    private record Entry(Object value, long weight, long loadedAt, Set<Integer> products) {
+    }
+
+    private static final class Load {
+        final Key key;
+        boolean stale;
+
+        Load(Key key) {
+            this.key = key;
+        }
+    }
+}
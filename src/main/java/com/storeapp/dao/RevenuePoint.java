@@ -0,0 +1,9 @@
+package com.storeapp.dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sales in one {@link TimeBucket} starting at {@code start}.
+ */
+public record RevenuePoint(LocalDateTime start, long saleCount, long units, double revenue) {
+}
@@ -0,0 +1,15 @@
+package com.storeapp.dao;
+
+import com.storeapp.model.Sale;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position in the newest-first {@code (sale_date, id)} ordering used by the paged sales queries.
+ */
+public record SaleCursor(LocalDateTime saleDate, int id) {
+
+    public static SaleCursor of(Sale sale) {
+        return new SaleCursor(sale.getSaleDate(), sale.getId());
+    }
+}
@@ -4,54 +4,223 @@ import com.storeapp.db.Database;
 import com.storeapp.model.Sale;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.CompletableFuture;
 
 public class SaleDAO {
 
+    private static final String SELECT_SALES = "SELECT s.*, p.name as product_name, p.category FROM sales s " +
+                                               "LEFT JOIN products p ON s.product_id = p.id ";
+    private static final String NEWEST_FIRST = "ORDER BY s.sale_date DESC, s.id DESC ";
+    private static final String OLDEST_FIRST = "ORDER BY s.sale_date ASC, s.id ASC ";
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // The unit cost is the product's cost price as of this transaction, the same value the
+    // rollup reads for its cost.
+    private static final String INSERT_SALE =
+            "INSERT INTO sales (product_id, quantity, total_price, sale_date, user_id, unit_cost) " +
+            "VALUES (?, ?, ?, ?, ?, COALESCE((SELECT cost_price FROM products WHERE id = ?), 0))";
+    // Columns of idx_sales_date_cover only, so the scan never touches the table or products.
+    private static final String SALES_BETWEEN =
+            "SELECT id, product_id, quantity, total_price, sale_date, user_id FROM sales " +
+            "WHERE sale_date >= ? AND sale_date < ?";
+    private static final String DELETE_SALE =
+            "DELETE FROM sales WHERE id = ? RETURNING product_id, quantity, total_price, sale_date, user_id, unit_cost";
+
     public List<Sale> getAllSales() throws SQLException {
         List<Sale> sales = new ArrayList<>();
-        String query = "SELECT s.*, p.name as product_name, p.category FROM sales s " +
-                      "LEFT JOIN products p ON s.product_id = p.id " +
-                      "ORDER BY s.sale_date DESC";
+        String query = SELECT_SALES + "ORDER BY s.sale_date DESC";
         try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                Sale sale = new Sale(
-                    rs.getInt("id"),
-                    rs.getInt("product_id"),
-                    rs.getInt("quantity"),
-                    rs.getDouble("total_price"),
-                    rs.getTimestamp("sale_date").toLocalDateTime(),
-                    rs.getInt("user_id")
-                );
-                sale.setProductName(rs.getString("product_name"));
-                sale.setCategory(rs.getString("category"));
-                sales.add(sale);
+                sales.add(extractSale(rs));
             }
         }
         return sales;
     }
 
+    private Sale extractSale(ResultSet rs) throws SQLException {
+        Sale sale = new Sale(
+            rs.getInt("id"),
+            rs.getInt("product_id"),
+            rs.getInt("quantity"),
+            rs.getDouble("total_price"),
+            rs.getTimestamp("sale_date").toLocalDateTime(),
+            rs.getInt("user_id")
+        );
+        sale.setUnitCost(rs.getDouble("unit_cost"));
+        sale.setProductName(rs.getString("product_name"));
+        sale.setCategory(rs.getString("category"));
+        return sale;
+    }
+
     public void addSale(Sale sale) throws SQLException {
-        String query = "INSERT INTO sales (product_id, quantity, total_price, sale_date, user_id) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, sale.getProductId());
-            stmt.setInt(2, sale.getQuantity());
-            stmt.setDouble(3, sale.getTotalPrice());
-            stmt.setTimestamp(4, Timestamp.valueOf(sale.getSaleDate()));
-            stmt.setInt(5, sale.getUserId());
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insertSale(conn, sale);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        SaleEvents.added(sale);
+    }
+
+    /**
+     * Inserts {@code sale} and its daily rollup contribution on the caller's connection so it
+     * can share a transaction with other writes, and stores the generated id on the sale. The
+     * caller owns the transaction and publishes the {@link SaleEvents} event once it commits.
+     */
+    int insertSale(Connection conn, Sale sale) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SALE)) {
+            bindSale(stmt, sale);
             stmt.executeUpdate();
         }
+        int id = (int) lastInsertRowId(conn);
+        sale.setId(id);
+        SalesRollup.add(conn, sale);
+        return id;
+    }
+
+    /**
+     * Deletes a sale and takes it out of the daily rollup on the caller's connection.
+     *
+     * @return the deleted sale, or {@code null} if there was none with that id
+     */
+    Sale removeSale(Connection conn, int id) throws SQLException {
+        Sale removed = null;
+        try (PreparedStatement stmt = conn.prepareStatement(DELETE_SALE)) {
+            stmt.setInt(1, id);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                removed = new Sale(id, rs.getInt("product_id"), rs.getInt("quantity"),
+                        rs.getDouble("total_price"), rs.getTimestamp("sale_date").toLocalDateTime(),
+                        rs.getInt("user_id"));
+                removed.setUnitCost(rs.getDouble("unit_cost"));
+            }
+        }
+        if (removed != null) {
+            SalesRollup.remove(conn, removed);
+        }
+        return removed;
+    }
+
+    private static long lastInsertRowId(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT last_insert_rowid()");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    public BatchResult addSales(Collection<Sale> sales) throws SQLException {
+        return addSales(sales.iterator());
+    }
+
+    /**
+     * Inserts sales with JDBC batching, committing one transaction per {@code db.batchSize}
+     * rows so a large backlog pays one fsync per chunk instead of one per sale. Generated ids
+     * are written back to each {@link Sale}. If a chunk fails it is rolled back and the
+     * exception reports how many rows earlier chunks already committed.
+     */
+    public BatchResult addSales(Iterator<Sale> sales) throws SQLException {
+        int chunkSize = Database.getConfig().getBatchSize();
+        long start = System.nanoTime();
+        int[] ids = new int[16];
+        int committed = 0;
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SALE)) {
+            conn.setAutoCommit(false);
+            List<Sale> chunk = new ArrayList<>(chunkSize);
+            try {
+                while (sales.hasNext()) {
+                    Sale sale = sales.next();
+                    bindSale(stmt, sale);
+                    stmt.addBatch();
+                    chunk.add(sale);
+                    if (chunk.size() == chunkSize) {
+                        ids = commitChunk(conn, stmt, chunk, ids, committed);
+                        committed += chunk.size();
+                        chunk.clear();
+                    }
+                }
+                ids = commitChunk(conn, stmt, chunk, ids, committed);
+                committed += chunk.size();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw new SQLException("Batch insert failed after " + committed + " committed rows: "
+                        + e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return new BatchResult(committed, Arrays.copyOf(ids, committed), System.nanoTime() - start);
     }
 
+    /**
+     * Streaming variant of {@link #addSales(Collection)}; only one chunk is held in memory.
+     */
+    public BatchResult addSales(Stream<Sale> sales) throws SQLException {
+        return addSales(sales.iterator());
+    }
+
+    private int[] commitChunk(Connection conn, PreparedStatement stmt, List<Sale> chunk,
+                              int[] ids, int offset) throws SQLException {
+        if (chunk.isEmpty()) {
+            return ids;
+        }
+        stmt.executeBatch();
+        long lastId = lastInsertRowId(conn);
+        SalesRollup.addAll(conn, chunk);
+        conn.commit();
+
+        // The chunk ran inside one write transaction on an AUTOINCREMENT table, so its rows
+        // received consecutive ids ending at last_insert_rowid().
+        if (ids.length < offset + chunk.size()) {
+            ids = Arrays.copyOf(ids, Math.max(ids.length * 2, offset + chunk.size()));
+        }
+        long firstId = lastId - chunk.size() + 1;
+        for (int i = 0; i < chunk.size(); i++) {
+            int id = (int) (firstId + i);
+            chunk.get(i).setId(id);
+            ids[offset + i] = id;
+        }
+        SaleEvents.added(chunk);
+        return ids;
+    }
+
+    private static void bindSale(PreparedStatement stmt, Sale sale) throws SQLException {
+        stmt.setInt(1, sale.getProductId());
+        stmt.setInt(2, sale.getQuantity());
+        stmt.setDouble(3, sale.getTotalPrice());
+        stmt.setTimestamp(4, Timestamp.valueOf(sale.getSaleDate()));
+        stmt.setInt(5, sale.getUserId());
+        stmt.setInt(6, sale.getProductId());
+    }
+
+    /**
+     * Sales from {@code startDate} to {@code endDate} inclusive, newest first.
+     */
     public List<Sale> getSalesByDateRange(LocalDateTime startDate, LocalDateTime endDate) throws SQLException {
         List<Sale> sales = new ArrayList<>();
-        String query = "SELECT s.*, p.name as product_name, p.category FROM sales s " +
-                      "LEFT JOIN products p ON s.product_id = p.id " +
+        String query = SELECT_SALES +
                       "WHERE s.sale_date BETWEEN ? AND ? " +
                       "ORDER BY s.sale_date DESC";
         try (Connection conn = Database.getConnection();
@@ -60,53 +229,283 @@ public class SaleDAO {
             stmt.setTimestamp(2, Timestamp.valueOf(endDate));
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                Sale sale = new Sale(
-                    rs.getInt("id"),
-                    rs.getInt("product_id"),
-                    rs.getInt("quantity"),
-                    rs.getDouble("total_price"),
-                    rs.getTimestamp("sale_date").toLocalDateTime(),
-                    rs.getInt("user_id")
-                );
-                sale.setProductName(rs.getString("product_name"));
-                sale.setCategory(rs.getString("category"));
-                sales.add(sale);
+                sales.add(extractSale(rs));
             }
         }
         return sales;
     }
 
+    /**
+     * Streams the sales matching {@code filter}, newest first, straight off an open cursor so
+     * memory use does not grow with the result size. The stream holds a pooled connection
+     * until it is closed or fully consumed, so always use it in try-with-resources.
+     */
+    public Stream<Sale> streamSales(SaleFilter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String query = SELECT_SALES + whereClause(filter, null, null, params) + NEWEST_FIRST;
+
+        Connection conn = Database.getConnection();
+        PreparedStatement stmt = null;
+        try {
+            stmt = conn.prepareStatement(query);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            bind(stmt, params);
+            SaleCursorSpliterator spliterator = new SaleCursorSpliterator(conn, stmt, stmt.executeQuery());
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+        } catch (SQLException | RuntimeException e) {
+            if (stmt != null) {
+                stmt.close();
+            }
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Calls {@code visitor} for every sale matching {@code filter} without materializing a list.
+     *
+     * @return the number of sales visited
+     */
+    public long forEachSale(SaleFilter filter, Consumer<Sale> visitor) throws SQLException {
+        long count = 0;
+        try (Stream<Sale> sales = streamSales(filter)) {
+            Iterator<Sale> it = sales.iterator();
+            while (it.hasNext()) {
+                visitor.accept(it.next());
+                count++;
+            }
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        return count;
+    }
+
+    /**
+     * Calls {@code visitor} for every sale made from {@code from} to {@code to} inclusive, in
+     * no particular order. Cheaper than {@link #forEachSale} for bulk scans: it reads only the
+     * indexed sale columns and leaves product name and category unset.
+     *
+     * @return the number of sales visited
+     */
+    public long forEachSaleBetween(LocalDate from, LocalDate to, Consumer<Sale> visitor) throws SQLException {
+        long count = 0;
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SALES_BETWEEN)) {
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                visitor.accept(new Sale(rs.getInt("id"), rs.getInt("product_id"), rs.getInt("quantity"),
+                        rs.getDouble("total_price"), rs.getTimestamp("sale_date").toLocalDateTime(),
+                        rs.getInt("user_id")));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private final class SaleCursorSpliterator extends Spliterators.AbstractSpliterator<Sale> {
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private boolean closed;
+
+        SaleCursorSpliterator(Connection conn, PreparedStatement stmt, ResultSet rs) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Sale> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+                action.accept(extractSale(rs));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (conn; stmt; rs) {
+                // try-with-resources closes the cursor, the statement and the lease in order.
+            } catch (SQLException e) {
+                System.err.println("Error closing sales cursor: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Newest {@code pageSize} sales matching {@code filter}.
+     */
+    public SalePage getFirstPage(SaleFilter filter, int pageSize) throws SQLException {
+        List<Sale> sales = seek(filter, null, null, pageSize, false);
+        return new SalePage(trim(sales, pageSize), false, sales.size() > pageSize);
+    }
+
+    /**
+     * The page of older sales that follows {@code after} (usually the current page's last cursor).
+     */
+    public SalePage getNextPage(SaleFilter filter, SaleCursor after, int pageSize) throws SQLException {
+        List<Sale> sales = seek(filter, after, "<", pageSize, false);
+        return new SalePage(trim(sales, pageSize), true, sales.size() > pageSize);
+    }
+
+    /**
+     * The page of newer sales that precedes {@code before} (usually the current page's first cursor).
+     */
+    public SalePage getPreviousPage(SaleFilter filter, SaleCursor before, int pageSize) throws SQLException {
+        List<Sale> sales = seek(filter, before, ">", pageSize, true);
+        if (sales.size() < pageSize) {
+            // Reached the newest end with a short page; show a full first page instead.
+            return getFirstPage(filter, pageSize);
+        }
+        boolean hasPrevious = sales.size() > pageSize;
+        List<Sale> page = trim(sales, pageSize);
+        Collections.reverse(page);
+        return new SalePage(page, hasPrevious, true);
+    }
+
+    /**
+     * The page that starts at {@code start} inclusive, used to refresh the current page in place.
+     */
+    public SalePage getPageStartingAt(SaleFilter filter, SaleCursor start, int pageSize) throws SQLException {
+        List<Sale> sales = seek(filter, start, "<=", pageSize, false);
+        boolean hasPrevious = !seek(filter, start, ">", 0, true).isEmpty();
+        return new SalePage(trim(sales, pageSize), hasPrevious, sales.size() > pageSize);
+    }
+
+    /**
+     * Reads up to {@code pageSize + 1} rows past {@code cursor}; the extra row tells the caller
+     * whether there is more beyond the page without a COUNT(*).
+     */
+    private List<Sale> seek(SaleFilter filter, SaleCursor cursor, String comparison,
+                            int pageSize, boolean oldestFirst) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String query = SELECT_SALES + whereClause(filter, cursor, comparison, params)
+                + (oldestFirst ? OLDEST_FIRST : NEWEST_FIRST) + "LIMIT ?";
+        params.add(pageSize + 1);
+
+        List<Sale> sales = new ArrayList<>(pageSize + 1);
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            bind(stmt, params);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                sales.add(extractSale(rs));
+            }
+        }
+        return sales;
+    }
+
+    private static List<Sale> trim(List<Sale> sales, int pageSize) {
+        return sales.size() > pageSize ? new ArrayList<>(sales.subList(0, pageSize)) : sales;
+    }
+
+    private static String whereClause(SaleFilter filter, SaleCursor cursor, String comparison, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.from() != null) {
+            conditions.add("s.sale_date >= ?");
+            params.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            conditions.add("s.sale_date <= ?");
+            params.add(Timestamp.valueOf(filter.to()));
+        }
+        if (filter.productId() != null) {
+            conditions.add("s.product_id = ?");
+            params.add(filter.productId());
+        }
+        if (filter.userId() != null) {
+            conditions.add("s.user_id = ?");
+            params.add(filter.userId());
+        }
+        if (filter.category() != null) {
+            conditions.add("p.category = ?");
+            params.add(filter.category());
+        }
+        if (cursor != null) {
+            conditions.add("(s.sale_date, s.id) " + comparison + " (?, ?)");
+            params.add(Timestamp.valueOf(cursor.saleDate()));
+            params.add(cursor.id());
+        }
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+    }
+
+    private static void bind(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object param = params.get(i);
+            if (param instanceof Timestamp timestamp) {
+                stmt.setTimestamp(i + 1, timestamp);
+            } else if (param instanceof String text) {
+                stmt.setString(i + 1, text);
+            } else {
+                stmt.setInt(i + 1, (Integer) param);
+            }
+        }
+    }
+
     public Sale getSaleById(int id) throws SQLException {
-        String query = "SELECT s.*, p.name as product_name, p.category FROM sales s " +
-                      "LEFT JOIN products p ON s.product_id = p.id " +
-                      "WHERE s.id = ?";
+        String query = SELECT_SALES + "WHERE s.id = ?";
         try (Connection conn = Database.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                Sale sale = new Sale(
-                    rs.getInt("id"),
-                    rs.getInt("product_id"),
-                    rs.getInt("quantity"),
-                    rs.getDouble("total_price"),
-                    rs.getTimestamp("sale_date").toLocalDateTime(),
-                    rs.getInt("user_id")
-                );
-                sale.setProductName(rs.getString("product_name"));
-                sale.setCategory(rs.getString("category"));
-                return sale;
+                return extractSale(rs);
             }
         }
         return null;
     }
 
     public void deleteSale(int id) throws SQLException {
-        String query = "DELETE FROM sales WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+        Sale removed;
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                removed = removeSale(conn, id);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
+        if (removed != null) {
+            SaleEvents.deleted(removed);
+        }
+    }
+
+    // Asynchronous counterparts, run on DaoExecutor's virtual threads.
+
+    public CompletableFuture<SalePage> getFirstPageAsync(SaleFilter filter, int pageSize) {
+        return DaoExecutor.supply(() -> getFirstPage(filter, pageSize));
+    }
+
+    public CompletableFuture<SalePage> getNextPageAsync(SaleFilter filter, SaleCursor after, int pageSize) {
+        return DaoExecutor.supply(() -> getNextPage(filter, after, pageSize));
+    }
+
+    public CompletableFuture<SalePage> getPreviousPageAsync(SaleFilter filter, SaleCursor before, int pageSize) {
+        return DaoExecutor.supply(() -> getPreviousPage(filter, before, pageSize));
+    }
+
+    public CompletableFuture<SalePage> getPageStartingAtAsync(SaleFilter filter, SaleCursor start, int pageSize) {
+        return DaoExecutor.supply(() -> getPageStartingAt(filter, start, pageSize));
     }
 }
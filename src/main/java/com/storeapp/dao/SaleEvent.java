@@ -0,0 +1,16 @@
+package com.storeapp.dao;
+
+import com.storeapp.model.Sale;
+
+/**
+ * A committed change to the sales table, as published by {@link SaleEvents}. A deleted sale
+ * carries the values it had before the delete; its product name and category may be
+ * {@code null}.
+ */
+public record SaleEvent(Type type, Sale sale) {
+
+    public enum Type {
+        ADDED,
+        DELETED
+    }
+}
@@ -0,0 +1,40 @@
+package com.storeapp.dao;
+
+import com.storeapp.model.Sale;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for sale changes. {@link SaleDAO} and {@link CheckoutService} publish on the
+ * writing thread after the transaction commits, so listeners only ever see rows that are in the
+ * database.
+ */
+public final class SaleEvents {
+
+    private static final ListenerBus<SaleEvent> BUS = new ListenerBus<>("Sale event");
+
+    private SaleEvents() {}
+
+    public static void subscribe(Consumer<SaleEvent> listener) {
+        BUS.subscribe(listener);
+    }
+
+    public static void unsubscribe(Consumer<SaleEvent> listener) {
+        BUS.unsubscribe(listener);
+    }
+
+    static void added(Sale sale) {
+        BUS.publish(new SaleEvent(SaleEvent.Type.ADDED, sale));
+    }
+
+    static void added(List<Sale> sales) {
+        for (Sale sale : sales) {
+            added(sale);
+        }
+    }
+
+    static void deleted(Sale sale) {
+        BUS.publish(new SaleEvent(SaleEvent.Type.DELETED, sale));
+    }
+}
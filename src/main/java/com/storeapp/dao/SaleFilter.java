@@ -0,0 +1,20 @@
+package com.storeapp.dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional restrictions for sales queries. A {@code null} component means "no restriction";
+ * both date bounds are inclusive.
+ */
+public record SaleFilter(LocalDateTime from, LocalDateTime to, Integer productId, Integer userId, String category) {
+
+    public static final SaleFilter ALL = new SaleFilter(null, null, null, null, null);
+
+    public SaleFilter withDateRange(LocalDateTime from, LocalDateTime to) {
+        return new SaleFilter(from, to, productId, userId, category);
+    }
+
+    public SaleFilter withProduct(Integer productId) {
+        return new SaleFilter(from, to, productId, userId, category);
+    }
+}
@@ -0,0 +1,23 @@
+package com.storeapp.dao;
+
+import com.storeapp.model.Sale;
+
+import java.util.List;
+
+/**
+ * One page of sales, newest first, with the cursors needed to fetch its neighbours.
+ */
+public record SalePage(List<Sale> sales, boolean hasPrevious, boolean hasNext) {
+
+    public boolean isEmpty() {
+        return sales.isEmpty();
+    }
+
+    public SaleCursor firstCursor() {
+        return sales.isEmpty() ? null : SaleCursor.of(sales.get(0));
+    }
+
+    public SaleCursor lastCursor() {
+        return sales.isEmpty() ? null : SaleCursor.of(sales.get(sales.size() - 1));
+    }
+}
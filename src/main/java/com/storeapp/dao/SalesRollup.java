@@ -0,0 +1,138 @@
+package com.storeapp.dao;
+
+import com.storeapp.db.Database;
+import com.storeapp.model.Sale;
+
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains {@code sales_daily_rollup}, the per-day, per-product, per-employee totals that
+ * range analytics read instead of scanning {@code sales}. The DAO calls it on the connection that
+ * writes the sale, inside the same transaction, so the rollup can never disagree with committed
+ * sales.
+ */
+public final class SalesRollup {
+
+    // Cost is read the same way as the sales' unit_cost in the same transaction, so the rollup
+    // holds exactly the sum of quantity * unit_cost.
+    private static final String UPSERT =
+            "INSERT INTO sales_daily_rollup (day, product_id, user_id, sale_count, units, revenue, cost) " +
+            "VALUES (?, ?, ?, ?, ?, ?, COALESCE((SELECT cost_price FROM products WHERE id = ?), 0) * ?) " +
+            "ON CONFLICT (day, product_id, user_id) DO UPDATE SET " +
+            "sale_count = sale_count + excluded.sale_count, units = units + excluded.units, " +
+            "revenue = revenue + excluded.revenue, cost = cost + excluded.cost";
+    private static final String SUBTRACT =
+            "UPDATE sales_daily_rollup SET sale_count = sale_count - 1, units = units - ?, " +
+            "revenue = revenue - ?, cost = cost - ? WHERE day = ? AND product_id = ? AND user_id = ?";
+    private static final String DELETE_EMPTY =
+            "DELETE FROM sales_daily_rollup WHERE day = ? AND product_id = ? AND user_id = ? AND sale_count <= 0";
+    private static final String REBUILD =
+            "INSERT INTO sales_daily_rollup (day, product_id, user_id, sale_count, units, revenue, cost) " +
+            "SELECT CASE WHEN typeof(sale_date) = 'integer' " +
+            "            THEN date(sale_date / 1000, 'unixepoch', 'localtime') " +
+            "            ELSE date(sale_date, 'localtime') END, " +
+            "       product_id, user_id, COUNT(*), SUM(quantity), SUM(total_price), SUM(quantity * unit_cost) " +
+            "FROM sales GROUP BY 1, 2, 3";
+
+    private SalesRollup() {}
+
+    static String dayOf(Sale sale) {
+        return sale.getSaleDate().toLocalDate().toString();
+    }
+
+    static void add(Connection conn, Sale sale) throws SQLException {
+        addAll(conn, List.of(sale));
+    }
+
+    /**
+     * Adds a chunk of new sales, folding sales of the same day and product into one upsert.
+     */
+    static void addAll(Connection conn, List<Sale> sales) throws SQLException {
+        Map<String, Bucket> buckets = new LinkedHashMap<>();
+        for (Sale sale : sales) {
+            String day = dayOf(sale);
+            Bucket bucket = buckets.computeIfAbsent(day + '|' + sale.getProductId() + '|' + sale.getUserId(),
+                    key -> new Bucket(day, sale.getProductId(), sale.getUserId()));
+            bucket.count++;
+            bucket.units += sale.getQuantity();
+            bucket.revenue += sale.getTotalPrice();
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT)) {
+            for (Bucket bucket : buckets.values()) {
+                stmt.setString(1, bucket.day);
+                stmt.setInt(2, bucket.productId);
+                stmt.setInt(3, bucket.userId);
+                stmt.setLong(4, bucket.count);
+                stmt.setLong(5, bucket.units);
+                stmt.setDouble(6, bucket.revenue);
+                stmt.setInt(7, bucket.productId);
+                stmt.setLong(8, bucket.units);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    static void remove(Connection conn, Sale sale) throws SQLException {
+        String day = dayOf(sale);
+        try (PreparedStatement stmt = conn.prepareStatement(SUBTRACT)) {
+            stmt.setInt(1, sale.getQuantity());
+            stmt.setDouble(2, sale.getTotalPrice());
+            stmt.setDouble(3, sale.getQuantity() * sale.getUnitCost());
+            stmt.setString(4, day);
+            stmt.setInt(5, sale.getProductId());
+            stmt.setInt(6, sale.getUserId());
+            stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(DELETE_EMPTY)) {
+            stmt.setString(1, day);
+            stmt.setInt(2, sale.getProductId());
+            stmt.setInt(3, sale.getUserId());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Recomputes the whole rollup from {@code sales} in one transaction, e.g. after sales
+     * were edited outside the application.
+     *
+     * @return the number of (day, product, employee) rows written
+     */
+    public static int rebuild() throws SQLException {
+        try (Connection conn = Database.getConnection();
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            try {
+                stmt.executeUpdate("DELETE FROM sales_daily_rollup");
+                int rows = stmt.executeUpdate(REBUILD);
+                conn.commit();
+                QueryCache.shared().clear();
+                return rows;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static final class Bucket {
+        final String day;
+        final int productId;
+        final int userId;
+        long count;
+        long units;
+        double revenue;
+
+        Bucket(String day, int productId, int userId) {
+            this.day = day;
+            this.productId = productId;
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.storeapp.dao;
+
+import java.util.List;
+
+/**
+ * Store-wide all-time and period totals and all-time units per category, read in one
+ * transaction together with the highest sale id that transaction could see. A sale with a
+ * larger id was committed afterwards and is not included.
+ */
+public record SalesTotals(int lastSaleId, long totalSales, double totalRevenue, long periodSales,
+                          double periodRevenue, List<CategoryUnits> categories) {
+}
@@ -0,0 +1,15 @@
+package com.storeapp.dao;
+
+/**
+ * A product crossing its reorder point, as published by {@link StockAlerts}: {@code LOW} when
+ * its stock falls below it (or it is added below it), {@code RESTOCKED} when it climbs back to
+ * it, and {@code REMOVED} when a low product is deleted.
+ */
+public record StockAlert(Type type, LowStockItem item) {
+
+    public enum Type {
+        LOW,
+        RESTOCKED,
+        REMOVED
+    }
+}
@@ -0,0 +1,26 @@
+package com.storeapp.dao;
+
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for reorder-point crossings, published by {@link ProductCatalog} on the
+ * writing thread after the write that caused them has committed.
+ */
+public final class StockAlerts {
+
+    private static final ListenerBus<StockAlert> BUS = new ListenerBus<>("Stock alert");
+
+    private StockAlerts() {}
+
+    public static void subscribe(Consumer<StockAlert> listener) {
+        BUS.subscribe(listener);
+    }
+
+    public static void unsubscribe(Consumer<StockAlert> listener) {
+        BUS.unsubscribe(listener);
+    }
+
+    static void publish(StockAlert alert) {
+        BUS.publish(alert);
+    }
+}
@@ -0,0 +1,48 @@
+package com.storeapp.dao;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket widths for {@link AnalyticsDAO#getRevenueSeries}. Weeks start on Monday.
+ */
+public enum TimeBucket {
+    HOUR("Hour"),
+    DAY("Day"),
+    WEEK("Week"),
+    MONTH("Month");
+
+    private final String label;
+
+    TimeBucket(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Start of the bucket containing {@code time}.
+     */
+    public LocalDateTime start(LocalDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.toLocalDate().atStartOfDay();
+            case WEEK -> time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            case MONTH -> time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return switch (this) {
+            case HOUR -> bucketStart.plusHours(1);
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,20 @@
+package com.storeapp.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Carries a {@link SQLException} out of a stream or callback that cannot throw checked exceptions.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
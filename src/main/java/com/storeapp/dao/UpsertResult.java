@@ -0,0 +1,7 @@
+package com.storeapp.dao;
+
+/**
+ * Row counts of one {@link ProductDAO#upsertProducts} call.
+ */
+public record UpsertResult(int inserted, int updated) {
+}
@@ -7,6 +7,7 @@ import com.storeapp.util.PasswordUtil;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class UserDAO {
 
@@ -24,7 +25,7 @@ public class UserDAO {
                 
                 if (PasswordUtil.verifyPassword(password, storedPassword) || password.equals(storedPassword)) {
                     if (password.equals(storedPassword)) {
-                        updatePasswordHash(userId, password);
+                        updatePasswordHash(conn, userId, password);
                     }
                     return new User(userId, storedUsername, storedPassword, role);
                 }
@@ -33,12 +34,11 @@ public class UserDAO {
         return null;
     }
 
-    private void updatePasswordHash(int userId, String plainPassword) {
+    private void updatePasswordHash(Connection conn, int userId, String plainPassword) {
         try {
             String hashedPassword = PasswordUtil.hashPassword(plainPassword);
             String query = "UPDATE users SET password = ? WHERE id = ?";
-            try (Connection conn = Database.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(query)) {
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
                 stmt.setString(1, hashedPassword);
                 stmt.setInt(2, userId);
                 stmt.executeUpdate();
@@ -52,8 +52,8 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String query = "SELECT * FROM users";
         try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 users.add(new User(
                     rs.getInt("id"),
@@ -97,4 +97,26 @@ public class UserDAO {
             stmt.executeUpdate();
         }
     }
+
+    // Asynchronous counterparts, run on DaoExecutor's virtual threads.
+
+    public CompletableFuture<User> authenticateAsync(String username, String password) {
+        return DaoExecutor.supply(() -> authenticate(username, password));
+    }
+
+    public CompletableFuture<List<User>> getAllUsersAsync() {
+        return DaoExecutor.supply(this::getAllUsers);
+    }
+
+    public CompletableFuture<Void> addUserAsync(User user) {
+        return DaoExecutor.run(() -> addUser(user));
+    }
+
+    public CompletableFuture<Void> updateUserAsync(User user) {
+        return DaoExecutor.run(() -> updateUser(user));
+    }
+
+    public CompletableFuture<Void> deleteUserAsync(int id) {
+        return DaoExecutor.run(() -> deleteUser(id));
+    }
 }
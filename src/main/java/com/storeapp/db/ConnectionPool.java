@@ -0,0 +1,308 @@
+package com.storeapp.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of long-lived SQLite connections. {@link #getConnection()} hands out a lease
+ * that returns the connection to the pool when closed, so DAOs keep using
+ * try-with-resources without reopening the database file on every call.
+ * Connections idle for longer than the configured timeout are closed by a background reaper,
+ * periodic WAL checkpoints run on a thread of their own, and every new connection is tuned
+ * with the configured {@link SqliteProfile} and gets its own {@link StatementCache}.
+ */
+public final class ConnectionPool implements AutoCloseable {
+    private final DatabaseConfig config;
+    private final String url;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final SqliteProfile profile;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService reaper;
+    private final ScheduledExecutorService checkpointer;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private volatile boolean closed;
+
+    private final LongAdder totalLeases = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder connectionsEvicted = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalLeaseNanos = new LongAdder();
+    private final LongAdder completedLeases = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    public ConnectionPool(DatabaseConfig config) {
+        this.config = config;
+        this.url = config.getUrl();
+        this.maxSize = config.getPoolSize();
+        this.idleTimeoutMillis = config.getIdleTimeoutMillis();
+        this.acquireTimeoutMillis = config.getAcquireTimeoutMillis();
+        this.profile = SqliteProfile.fromConfig(config);
+        this.statementCacheSize = config.getStatementCacheSize();
+        this.permits = new Semaphore(maxSize, true);
+
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000L, idleTimeoutMillis / 2);
+        reaper.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        long checkpointInterval = profile.getCheckpointIntervalMillis();
+        if (checkpointInterval > 0) {
+            // Separate from the reaper: a TRUNCATE checkpoint waits for readers, and idle
+            // connections must still be closed meanwhile.
+            this.checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "db-wal-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checkpointer.scheduleWithFixedDelay(this::checkpoint, checkpointInterval, checkpointInterval,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.checkpointer = null;
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return leaseAcquired();
+    }
+
+    /**
+     * A connection if one can be had without waiting, else {@code null}.
+     */
+    private Connection tryGetConnection() throws SQLException {
+        if (closed || !permits.tryAcquire()) {
+            return null;
+        }
+        return leaseAcquired();
+    }
+
+    // Called holding a permit, which is given back if no connection can be leased.
+    private Connection leaseAcquired() throws SQLException {
+        try {
+            PoolEntry entry = takeIdle();
+            if (entry == null) {
+                entry = open();
+            }
+            totalLeases.increment();
+            return PooledConnection.lease(this, entry);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PoolEntry entry, long leaseNanos) {
+        totalLeaseNanos.add(leaseNanos);
+        completedLeases.increment();
+        Connection physical = entry.connection();
+        try {
+            boolean reusable = !closed && !physical.isClosed();
+            if (reusable && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                lock.lock();
+                try {
+                    idle.push(new IdleConnection(entry, System.currentTimeMillis()));
+                } finally {
+                    lock.unlock();
+                }
+            } else {
+                discard(entry);
+            }
+        } catch (SQLException e) {
+            System.err.println("Discarding broken database connection: " + e.getMessage());
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PoolEntry takeIdle() {
+        lock.lock();
+        try {
+            IdleConnection candidate;
+            while ((candidate = idle.poll()) != null) {
+                if (isExpired(candidate, System.currentTimeMillis()) || isClosedQuietly(candidate.entry().connection())) {
+                    connectionsEvicted.increment();
+                    discard(candidate.entry());
+                    continue;
+                }
+                return candidate.entry();
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PoolEntry open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try {
+            profile.apply(connection);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        openConnections.incrementAndGet();
+        connectionsCreated.increment();
+        return new PoolEntry(connection,
+                new StatementCache(connection, statementCacheSize, statementCacheHits, statementCacheMisses));
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                IdleConnection candidate = it.next();
+                if (isExpired(candidate, now)) {
+                    it.remove();
+                    connectionsEvicted.increment();
+                    discard(candidate.entry());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkpoint() {
+        // A saturated pool skips this round rather than waiting for a connection.
+        try (Connection conn = tryGetConnection()) {
+            if (conn != null) {
+                profile.checkpoint(conn);
+            }
+        } catch (SQLException e) {
+            System.err.println("WAL checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    private boolean isExpired(IdleConnection candidate, long now) {
+        return idleTimeoutMillis > 0 && now - candidate.idleSince() > idleTimeoutMillis;
+    }
+
+    private static boolean isClosedQuietly(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private void discard(PoolEntry entry) {
+        openConnections.decrementAndGet();
+        entry.statements().closeAll();
+        try {
+            entry.connection().close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+
+    public PoolStats getStats() {
+        int idleCount;
+        lock.lock();
+        try {
+            idleCount = idle.size();
+        } finally {
+            lock.unlock();
+        }
+        long leases = totalLeases.sum();
+        long completed = completedLeases.sum();
+        return new PoolStats(
+                maxSize,
+                openConnections.get(),
+                idleCount,
+                maxSize - permits.availablePermits(),
+                leases,
+                timeouts.sum(),
+                connectionsCreated.sum(),
+                connectionsEvicted.sum(),
+                leases == 0 ? 0 : totalWaitNanos.sum() / 1e6 / leases,
+                maxWaitNanos.get() / 1e6,
+                completed == 0 ? 0 : totalLeaseNanos.sum() / 1e6 / completed,
+                statementCacheHits.sum(),
+                statementCacheMisses.sum()
+        );
+    }
+
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    public SqliteProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        reaper.shutdownNow();
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+        }
+        lock.lock();
+        try {
+            IdleConnection first = idle.peek();
+            if (first != null) {
+                try {
+                    profile.checkpoint(first.entry().connection());
+                } catch (SQLException e) {
+                    System.err.println("WAL checkpoint on close failed: " + e.getMessage());
+                }
+            }
+            IdleConnection candidate;
+            while ((candidate = idle.poll()) != null) {
+                discard(candidate.entry());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    record PoolEntry(Connection connection, StatementCache statements) {}
+
+    private record IdleConnection(PoolEntry entry, long idleSince) {}
+}
@@ -1,75 +1,93 @@
 package com.storeapp.db;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.stream.Collectors;
 
 public class Database {
-    private static final String DB_DIR = System.getProperty("user.home") + File.separator + ".retailstore";
-    private static final String DB_FILE = DB_DIR + File.separator + "store.db";
-    private static final String URL = "jdbc:sqlite:" + DB_FILE;
-    private static Connection connection;
-    private static boolean initialized = false;
+    private static volatile ConnectionPool pool;
 
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                Path dbPath = Paths.get(DB_DIR);
-                if (!Files.exists(dbPath)) {
-                    Files.createDirectories(dbPath);
-                    System.out.println("Created database directory: " + DB_DIR);
+        return getPool().getConnection();
+    }
+
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (Database.class) {
+                if (pool == null) {
+                    pool = createPool(DatabaseConfig.load());
                 }
-            } catch (Exception e) {
-                System.err.println("Error creating database directory: " + e.getMessage());
+                current = pool;
             }
-            
-            connection = DriverManager.getConnection(URL);
-            if (!initialized) {
-                initializeDatabase();
-                initialized = true;
+        }
+        return current;
+    }
+
+    public static DatabaseConfig getConfig() throws SQLException {
+        return getPool().getConfig();
+    }
+
+    /**
+     * Replaces the current pool with one built from {@code config}. Used by headless tools
+     * and benchmarks that run against a different database file or profile.
+     */
+    public static void configure(DatabaseConfig config) throws SQLException {
+        synchronized (Database.class) {
+            closeConnection();
+            pool = createPool(config);
+        }
+    }
+
+    private static ConnectionPool createPool(DatabaseConfig config) throws SQLException {
+        try {
+            Path dbDir = Paths.get(config.getDatabaseFile()).toAbsolutePath().getParent();
+            if (dbDir != null && !Files.exists(dbDir)) {
+                Files.createDirectories(dbDir);
+                System.out.println("Created database directory: " + dbDir);
             }
+        } catch (Exception e) {
+            System.err.println("Error creating database directory: " + e.getMessage());
         }
-        return connection;
+
+        ConnectionPool newPool = new ConnectionPool(config);
+        try (Connection conn = newPool.getConnection()) {
+            initializeDatabase(conn);
+            MigrationRunner.migrate(conn);
+        } catch (SQLException e) {
+            newPool.close();
+            throw e;
+        }
+        return newPool;
     }
 
-    private static void initializeDatabase() {
+    private static void initializeDatabase(Connection connection) {
         try {
-            boolean tablesExist = connection.getMetaData().getTables(null, null, "users", null).next();
-            
+            boolean tablesExist;
+            // Close the metadata cursor; left open it keeps a read statement active on this
+            // pooled connection and later WAL checkpoints fail with SQLITE_LOCKED.
+            try (ResultSet tables = connection.getMetaData().getTables(null, null, "users", null)) {
+                tablesExist = tables.next();
+            }
+
             if (!tablesExist) {
                 System.out.println("Initializing database from schema.sql...");
                 String schemaPath = "db/schema.sql";
                 String sql;
-                
+
                 if (Files.exists(Paths.get(schemaPath))) {
                     sql = new String(Files.readAllBytes(Paths.get(schemaPath)));
                 } else {
-                    try (InputStream is = Database.class.getClassLoader().getResourceAsStream("schema.sql")) {
-                        if (is == null) {
-                            System.err.println("Could not find schema.sql");
-                            return;
-                        }
-                        sql = new BufferedReader(new InputStreamReader(is))
-                                .lines().collect(Collectors.joining("\n"));
-                    }
+                    sql = SqlScript.readResource("schema.sql");
                 }
-                
-                String[] statements = sql.split(";");
+
                 try (Statement stmt = connection.createStatement()) {
-                    for (String statement : statements) {
-                        String trimmed = statement.trim();
-                        if (!trimmed.isEmpty()) {
-                            stmt.execute(trimmed);
-                        }
+                    for (String statement : SqlScript.split(sql)) {
+                        stmt.execute(statement);
                     }
                 }
                 System.out.println("Database initialized successfully!");
@@ -81,12 +99,11 @@ public class Database {
     }
 
     public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+        synchronized (Database.class) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 }
@@ -0,0 +1,188 @@
+package com.storeapp.db;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Database and analytics settings read from {@code app.properties}. A JVM system property with the
+ * same key (e.g. {@code -Ddb.pool.size=8}) takes precedence over the file.
+ */
+public class DatabaseConfig {
+    private static final String CONFIG_FILE = "app.properties";
+    private static final String CATEGORY_REORDER_POINT = "stock.reorderPoint.";
+    private static final String DEFAULT_DB_FILE = System.getProperty("user.home") + File.separator
+            + ".retailstore" + File.separator + "store.db";
+
+    private final Properties properties;
+
+    public DatabaseConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static DatabaseConfig load() {
+        Properties properties = new Properties();
+        Path configPath = Paths.get(CONFIG_FILE);
+        try {
+            if (Files.exists(configPath)) {
+                try (InputStream is = Files.newInputStream(configPath)) {
+                    properties.load(is);
+                }
+            } else {
+                try (InputStream is = DatabaseConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+                    if (is != null) {
+                        properties.load(is);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error reading " + CONFIG_FILE + ": " + e.getMessage());
+        }
+        return new DatabaseConfig(properties);
+    }
+
+    public DatabaseConfig with(String key, String value) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        copy.setProperty(key, value);
+        return new DatabaseConfig(copy);
+    }
+
+    public String getDatabaseFile() {
+        return getString("db.path", DEFAULT_DB_FILE);
+    }
+
+    public String getUrl() {
+        return "jdbc:sqlite:" + getDatabaseFile();
+    }
+
+    public int getPoolSize() {
+        return Math.max(1, getInt("db.pool.size", 4));
+    }
+
+    public long getIdleTimeoutMillis() {
+        return getLong("db.pool.idleTimeoutSeconds", 300) * 1000L;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return getLong("db.pool.acquireTimeoutSeconds", 30) * 1000L;
+    }
+
+    public int getStatementCacheSize() {
+        return getInt("db.statementCacheSize", 64);
+    }
+
+    public int getBatchSize() {
+        return Math.max(1, getInt("db.batchSize", 1000));
+    }
+
+    /**
+     * Counters per best-sellers summary. Rankings are exact while fewer distinct products sell
+     * in a window than this; beyond that each count is overstated by at most
+     * {@code units in window / capacity}.
+     */
+    public int getBestSellerCapacity() {
+        return Math.max(16, getInt("analytics.bestSellers.capacity", 1024));
+    }
+
+    /**
+     * Threads used by in-memory sales scans; 1 keeps them on the calling thread.
+     */
+    public int getAnalyticsParallelism() {
+        return Math.max(1, getInt("analytics.parallelism", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Days of sales sketches kept in memory, about 10 KB each; the least recently used go first.
+     */
+    public int getSketchDays() {
+        return Math.max(1, getInt("analytics.sketchDays", 366));
+    }
+
+    /**
+     * Result rows the DAO query cache may hold; {@code 0} disables it.
+     */
+    public long getQueryCacheMaxRows() {
+        return Math.max(0, getLong("cache.maxRows", 100_000));
+    }
+
+    public long getQueryCacheTtlSeconds() {
+        return Math.max(0, getLong("cache.ttlSeconds", 300));
+    }
+
+    /**
+     * Seconds the product catalog is kept before the next read loads it again, picking up
+     * product edits made outside the application; {@code 0} keeps it until invalidated.
+     */
+    public long getCatalogMaxAgeSeconds() {
+        return Math.max(0, getLong("catalog.maxAgeSeconds", 300));
+    }
+
+    /**
+     * Stock level below which a product counts as low, unless its category or the product
+     * sets its own.
+     */
+    public int getDefaultReorderPoint() {
+        return Math.max(0, getInt("stock.reorderPoint", 10));
+    }
+
+    /**
+     * Reorder points per category, from {@code stock.reorderPoint.<category>} keys. Spaces in
+     * a category name are written {@code \ } in the properties file.
+     */
+    public Map<String, Integer> getCategoryReorderPoints() {
+        Set<String> keys = new HashSet<>(properties.stringPropertyNames());
+        keys.addAll(System.getProperties().stringPropertyNames());
+        Map<String, Integer> points = new HashMap<>();
+        for (String key : keys) {
+            if (key.startsWith(CATEGORY_REORDER_POINT) && key.length() > CATEGORY_REORDER_POINT.length()) {
+                points.put(key.substring(CATEGORY_REORDER_POINT.length()), Math.max(0, getInt(key, 0)));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Days ahead of its expiry date that a product is listed as expiring soon.
+     */
+    public int getExpiryWarningDays() {
+        return Math.max(0, getInt("expiry.warningDays", 7));
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = properties.getProperty(key);
+        }
+        return value != null && !value.isBlank() ? value.trim() : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
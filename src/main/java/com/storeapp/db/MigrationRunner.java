@@ -0,0 +1,81 @@
+package com.storeapp.db;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Applies the numbered scripts under {@code resources/migrations} that are newer than the
+ * database's {@code PRAGMA user_version}. Each script runs in its own write transaction
+ * together with the version bump, so a failed migration leaves the database untouched.
+ * New migrations are appended to {@link #MIGRATIONS}; never reorder or edit shipped ones.
+ */
+public final class MigrationRunner {
+    private static final List<String> MIGRATIONS = List.of(
+            "V1__sales_indexes.sql",
+            "V2__products_natural_key.sql",
+            "V3__sales_daily_rollup.sql",
+            "V4__sales_unit_cost.sql",
+            "V5__products_fts.sql",
+            "V6__products_reorder_point.sql",
+            "V7__products_expiry_index.sql"
+    );
+
+    private MigrationRunner() {}
+
+    public static int latestVersion() {
+        return MIGRATIONS.size();
+    }
+
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static void migrate(Connection conn) throws SQLException {
+        int version = currentVersion(conn);
+        if (version > latestVersion()) {
+            System.err.println("Database schema version " + version + " is newer than this application ("
+                    + latestVersion() + ")");
+            return;
+        }
+        for (int next = version + 1; next <= latestVersion(); next++) {
+            apply(conn, next, MIGRATIONS.get(next - 1));
+        }
+    }
+
+    private static void apply(Connection conn, int version, String name) throws SQLException {
+        List<String> statements;
+        try {
+            statements = SqlScript.split(SqlScript.readResource("migrations/" + name));
+        } catch (IOException e) {
+            throw new SQLException("Could not read migration " + name, e);
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            // IMMEDIATE takes the write lock up front, so a second instance starting at the
+            // same time waits here and then sees the bumped version instead of re-running it.
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                if (currentVersion(conn) >= version) {
+                    stmt.execute("COMMIT");
+                    return;
+                }
+                for (String statement : statements) {
+                    stmt.execute(statement);
+                }
+                stmt.execute("PRAGMA user_version = " + version);
+                stmt.execute("COMMIT");
+                System.out.println("Applied database migration " + name);
+            } catch (SQLException e) {
+                stmt.execute("ROLLBACK");
+                throw new SQLException("Database migration " + name + " failed: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.storeapp.db;
+
+public record PoolStats(
+        int maxSize,
+        int openConnections,
+        int idleConnections,
+        int leasedConnections,
+        long totalLeases,
+        long timeouts,
+        long connectionsCreated,
+        long connectionsEvicted,
+        double averageWaitMillis,
+        double maxWaitMillis,
+        double averageLeaseMillis,
+        long statementCacheHits,
+        long statementCacheMisses
+) {
+    public double statementCacheHitRatio() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("pool[size=%d open=%d idle=%d leased=%d] leases=%d timeouts=%d created=%d evicted=%d "
+                        + "wait(avg=%.3fms max=%.3fms) lease(avg=%.3fms) statements(hits=%d misses=%d ratio=%.1f%%)",
+                maxSize, openConnections, idleConnections, leasedConnections, totalLeases, timeouts,
+                connectionsCreated, connectionsEvicted, averageWaitMillis, maxWaitMillis, averageLeaseMillis,
+                statementCacheHits, statementCacheMisses, statementCacheHitRatio() * 100);
+    }
+}
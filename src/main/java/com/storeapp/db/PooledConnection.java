@@ -0,0 +1,72 @@
+package com.storeapp.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A lease on a pooled connection. Calling {@code close()} hands the physical connection
+ * back to the pool instead of closing the SQLite file, and {@code prepareStatement}
+ * is served from the connection's {@link StatementCache}.
+ */
+final class PooledConnection implements InvocationHandler {
+    private final ConnectionPool pool;
+    private final ConnectionPool.PoolEntry entry;
+    private final Connection physical;
+    private final long leasedAt = System.nanoTime();
+    private volatile boolean closed;
+
+    private PooledConnection(ConnectionPool pool, ConnectionPool.PoolEntry entry) {
+        this.pool = pool;
+        this.entry = entry;
+        this.physical = entry.connection();
+    }
+
+    static Connection lease(ConnectionPool pool, ConnectionPool.PoolEntry entry) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnection(pool, entry));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+                if (!closed) {
+                    closed = true;
+                    pool.release(entry, System.nanoTime() - leasedAt);
+                }
+                return null;
+            case "isClosed":
+                return closed || physical.isClosed();
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "PooledConnection[" + physical + (closed ? ", returned" : "") + "]";
+            default:
+                break;
+        }
+        if (closed) {
+            throw new SQLException("Connection lease has already been returned to the pool");
+        }
+        if (method.getName().equals("prepareStatement")) {
+            if (args.length == 1) {
+                return entry.statements().prepare((String) args[0]);
+            }
+            if (args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                return entry.statements().prepare((String) args[0], autoGeneratedKeys);
+            }
+        }
+        try {
+            return method.invoke(physical, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
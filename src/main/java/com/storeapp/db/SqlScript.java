@@ -0,0 +1,101 @@
+package com.storeapp.db;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Splits a SQL script into statements. Unlike splitting on every {@code ;} it leaves
+ * string literals, quoted identifiers, comments and {@code CREATE TRIGGER ... BEGIN ... END}
+ * bodies intact.
+ */
+final class SqlScript {
+    private static final Pattern CREATE_TRIGGER =
+            Pattern.compile("^\\s*CREATE\\s+(TEMP\\s+|TEMPORARY\\s+)?TRIGGER\\b", Pattern.CASE_INSENSITIVE);
+
+    private SqlScript() {}
+
+    static String readResource(String resource) throws IOException {
+        try (InputStream is = SqlScript.class.getClassLoader().getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new IOException("Could not find " + resource);
+            }
+            return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))
+                    .lines().collect(Collectors.joining("\n"));
+        }
+    }
+
+    static List<String> split(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        int i = 0;
+        int n = sql.length();
+
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                current.append(' ');
+            } else if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                char close = c == '[' ? ']' : c;
+                int start = i++;
+                while (i < n) {
+                    if (sql.charAt(i) == close) {
+                        // A doubled quote is an escaped quote, not the end of the literal.
+                        if (close != ']' && i + 1 < n && sql.charAt(i + 1) == close) {
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    i++;
+                }
+                current.append(sql, start, i);
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+                String word = sql.substring(start, i).toUpperCase(Locale.ROOT);
+                if (word.equals("BEGIN") && (depth > 0 || CREATE_TRIGGER.matcher(current).find())) {
+                    depth++;
+                } else if (word.equals("CASE") && depth > 0) {
+                    depth++;
+                } else if (word.equals("END") && depth > 0) {
+                    depth--;
+                }
+                current.append(sql, start, i);
+            } else if (c == ';' && depth == 0) {
+                addStatement(statements, current);
+                current.setLength(0);
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String trimmed = current.toString().trim();
+        if (!trimmed.isEmpty()) {
+            statements.add(trimmed);
+        }
+    }
+}
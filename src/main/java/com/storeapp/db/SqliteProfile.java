@@ -0,0 +1,144 @@
+package com.storeapp.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * PRAGMA settings applied to every pooled connection when it is opened.
+ * {@code db.profile} selects a preset; any individual {@code db.*} key overrides it.
+ */
+public final class SqliteProfile {
+
+    public enum Preset {
+        /** Driver defaults: rollback journal, synchronous=FULL. Kept for benchmarking. */
+        DEFAULT,
+        /** WAL journaling but every commit is still fsynced. */
+        SAFE,
+        /** WAL + synchronous=NORMAL, larger page cache, memory-mapped reads. */
+        PERFORMANCE
+    }
+
+    public enum JournalMode { DELETE, TRUNCATE, PERSIST, MEMORY, WAL, OFF }
+
+    public enum Synchronous { OFF, NORMAL, FULL, EXTRA }
+
+    public enum TempStore { DEFAULT, FILE, MEMORY }
+
+    public enum CheckpointMode { PASSIVE, FULL, RESTART, TRUNCATE }
+
+    private final Preset preset;
+    private final JournalMode journalMode;
+    private final Synchronous synchronous;
+    private final Integer cacheSize;
+    private final Long mmapSize;
+    private final TempStore tempStore;
+    private final int busyTimeoutMillis;
+    private final Integer walAutoCheckpoint;
+    private final CheckpointMode checkpointMode;
+    private final long checkpointIntervalMillis;
+
+    private SqliteProfile(Preset preset, DatabaseConfig config) {
+        this.preset = preset;
+        boolean tuned = preset != Preset.DEFAULT;
+        boolean fast = preset == Preset.PERFORMANCE;
+
+        this.journalMode = parse(JournalMode.class, config.getString("db.journalMode", null),
+                tuned ? JournalMode.WAL : null);
+        this.synchronous = parse(Synchronous.class, config.getString("db.synchronous", null),
+                tuned ? (fast ? Synchronous.NORMAL : Synchronous.FULL) : null);
+        this.cacheSize = optionalInt(config, "db.cacheSize", fast ? -16384 : null);
+        this.mmapSize = optionalLong(config, "db.mmapSize", fast ? 268435456L : null);
+        this.tempStore = parse(TempStore.class, config.getString("db.tempStore", null),
+                fast ? TempStore.MEMORY : null);
+        this.busyTimeoutMillis = config.getInt("db.busyTimeoutMillis", tuned ? 5000 : 3000);
+        this.walAutoCheckpoint = optionalInt(config, "db.walAutoCheckpoint", tuned ? 1000 : null);
+        this.checkpointMode = parse(CheckpointMode.class, config.getString("db.checkpointMode", null),
+                CheckpointMode.TRUNCATE);
+        this.checkpointIntervalMillis = config.getLong("db.checkpointIntervalSeconds", tuned ? 300 : 0) * 1000L;
+    }
+
+    public static SqliteProfile fromConfig(DatabaseConfig config) {
+        Preset preset = parse(Preset.class, config.getString("db.profile", null), Preset.PERFORMANCE);
+        return new SqliteProfile(preset, config);
+    }
+
+    public void apply(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            if (journalMode != null) {
+                try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = " + journalMode)) {
+                    if (rs.next() && !journalMode.name().equalsIgnoreCase(rs.getString(1))) {
+                        System.err.println("SQLite refused journal_mode=" + journalMode + ", using " + rs.getString(1));
+                    }
+                }
+            }
+            if (synchronous != null) {
+                stmt.execute("PRAGMA synchronous = " + synchronous);
+            }
+            if (cacheSize != null) {
+                stmt.execute("PRAGMA cache_size = " + cacheSize);
+            }
+            if (mmapSize != null) {
+                stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            }
+            if (tempStore != null) {
+                stmt.execute("PRAGMA temp_store = " + tempStore);
+            }
+            if (walAutoCheckpoint != null) {
+                stmt.execute("PRAGMA wal_autocheckpoint = " + walAutoCheckpoint);
+            }
+        }
+    }
+
+    public void checkpoint(Connection connection) throws SQLException {
+        if (journalMode != JournalMode.WAL) {
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA wal_checkpoint(" + checkpointMode + ")");
+        }
+    }
+
+    public long getCheckpointIntervalMillis() {
+        return journalMode == JournalMode.WAL ? checkpointIntervalMillis : 0;
+    }
+
+    public Preset getPreset() {
+        return preset;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, E defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown " + type.getSimpleName() + " '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static Integer optionalInt(DatabaseConfig config, String key, Integer defaultValue) {
+        Long value = optionalLong(config, key, defaultValue != null ? defaultValue.longValue() : null);
+        return value != null ? value.intValue() : null;
+    }
+
+    private static Long optionalLong(DatabaseConfig config, String key, Long defaultValue) {
+        if (config.getString(key, null) == null) {
+            return defaultValue;
+        }
+        return config.getLong(key, defaultValue != null ? defaultValue : 0L);
+    }
+
+    @Override
+    public String toString() {
+        return preset + "[journal_mode=" + journalMode + ", synchronous=" + synchronous
+                + ", cache_size=" + cacheSize + ", mmap_size=" + mmapSize + ", temp_store=" + tempStore
+                + ", busy_timeout=" + busyTimeoutMillis + ", wal_autocheckpoint=" + walAutoCheckpoint
+                + ", checkpoint=" + checkpointMode + "/" + checkpointIntervalMillis / 1000 + "s]";
+    }
+}
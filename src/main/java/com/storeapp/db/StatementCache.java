@@ -0,0 +1,164 @@
+package com.storeapp.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements bound to one physical connection, keyed by SQL text.
+ * Statements handed out are proxies: {@code close()} closes the open result set and clears
+ * the parameters but keeps the compiled statement for the next caller.
+ * Only used by the thread holding the connection's lease, so it needs no locking.
+ */
+final class StatementCache {
+    private static final String NO_KEYS = "\u0000";
+
+    private final Connection connection;
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection connection, int capacity, LongAdder hits, LongAdder misses) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, -1);
+    }
+
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys < 0 ? sql + NO_KEYS : sql + NO_KEYS + autoGeneratedKeys;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+        misses.increment();
+        PreparedStatement physical = autoGeneratedKeys < 0
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+        if (capacity <= 0 || cached != null) {
+            // Caching disabled, or the same SQL is already checked out (e.g. nested use):
+            // hand out a plain statement that the caller closes for real.
+            return physical;
+        }
+        cached = new CachedStatement(physical);
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.proxy;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > capacity && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            it.remove();
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    void closeAll() {
+        List<CachedStatement> all = new ArrayList<>(statements.values());
+        statements.clear();
+        for (CachedStatement statement : all) {
+            statement.closePhysical();
+        }
+    }
+
+    private static final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final PreparedStatement proxy;
+        private ResultSet openResultSet;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || physical.isClosed();
+                case "equals":
+                    return target == args[0];
+                case "hashCode":
+                    return System.identityHashCode(target);
+                case "toString":
+                    return "CachedStatement[" + physical + "]";
+                default:
+                    break;
+            }
+            if (!inUse) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof ResultSet rs && method.getName().startsWith("execute")) {
+                    openResultSet = rs;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void release() throws SQLException {
+            inUse = false;
+            try {
+                if (openResultSet != null) {
+                    openResultSet.close();
+                    openResultSet = null;
+                }
+                physical.clearParameters();
+                physical.clearBatch();
+            } finally {
+                if (evicted) {
+                    closePhysical();
+                }
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+}
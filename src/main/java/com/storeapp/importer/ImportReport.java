@@ -0,0 +1,22 @@
+package com.storeapp.importer;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of a {@link ProductImporter} run. {@code errorReport} is {@code null} when no row
+ * was rejected.
+ */
+public record ImportReport(long rowsRead, long inserted, long updated, long rejected,
+                           long elapsedNanos, Path errorReport) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows read: %d inserted, %d updated, %d rejected in %.1f ms (%.0f rows/s)%s",
+                rowsRead, inserted, updated, rejected, elapsedNanos / 1e6, rowsPerSecond(),
+                errorReport != null ? "; rejected rows written to " + errorReport : "");
+    }
+}
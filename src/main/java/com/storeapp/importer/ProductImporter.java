@@ -0,0 +1,343 @@
+package com.storeapp.importer;
+
+import com.storeapp.dao.ProductDAO;
+import com.storeapp.dao.UpsertResult;
+import com.storeapp.db.Database;
+import com.storeapp.model.Product;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bulk catalog import from CSV. A parser thread streams and validates the file while the
+ * calling thread upserts the previous chunk, so parsing overlaps the database writes and
+ * memory stays bounded by a few chunks. Each chunk is one transaction; rows are matched on
+ * (name, supplier), and rows that fail validation or the insert go to an error report instead
+ * of aborting the import.
+ *
+ * <p>Expected header (any order, case-insensitive; description, supplier and expiry_date optional):
+ * {@code name,description,cost_price,selling_price,quantity,category,supplier,expiry_date}
+ */
+public class ProductImporter {
+
+    private static final List<String> REQUIRED_COLUMNS =
+            List.of("name", "cost_price", "selling_price", "quantity", "category");
+    private static final int QUEUE_CHUNKS = 4;
+    private static final List<Row> END = new ArrayList<>();
+
+    private final ProductDAO productDAO = new ProductDAO();
+    private final int chunkSize;
+
+    public ProductImporter() throws SQLException {
+        this(Database.getConfig().getBatchSize());
+    }
+
+    public ProductImporter(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReport importFile(Path csv, Path errorReport) throws IOException {
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            return importCsv(reader, errorReport);
+        }
+    }
+
+    public ImportReport importCsv(Reader input, Path errorReportPath) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<List<Row>> queue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        try (CsvReader csv = new CsvReader(input);
+             ErrorReport errors = new ErrorReport(errorReportPath)) {
+            Map<String, Integer> columns = readHeader(csv);
+            Parser parser = new Parser(csv, columns, errors, queue);
+            Thread parserThread = new Thread(parser, "product-import-parser");
+            parserThread.setDaemon(true);
+            parserThread.start();
+
+            long inserted = 0;
+            long updated = 0;
+            boolean finished = false;
+            try {
+                List<Row> chunk;
+                while ((chunk = queue.take()) != END) {
+                    UpsertResult result = write(chunk, errors);
+                    inserted += result.inserted();
+                    updated += result.updated();
+                }
+                finished = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted", e);
+            } finally {
+                if (!finished) {
+                    parser.cancelled = true;
+                    parserThread.interrupt();
+                }
+                joinQuietly(parserThread, queue);
+            }
+
+            if (parser.failure != null) {
+                throw parser.failure;
+            }
+            return new ImportReport(parser.rowsRead, inserted, updated, errors.count,
+                    System.nanoTime() - start, errors.count > 0 ? errorReportPath : null);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private UpsertResult write(List<Row> chunk, ErrorReport errors) {
+        // Last row wins for a key repeated within the chunk, as it would if applied one by one.
+        Map<String, Row> byKey = new LinkedHashMap<>();
+        for (Row row : chunk) {
+            byKey.put(row.product().getName() + '\u0000' + row.product().getSupplier(), row);
+        }
+        int superseded = chunk.size() - byKey.size();
+
+        List<Product> products = new ArrayList<>(byKey.size());
+        for (Row row : byKey.values()) {
+            products.add(row.product());
+        }
+        try {
+            UpsertResult result = productDAO.upsertProducts(products);
+            return new UpsertResult(result.inserted(), result.updated() + superseded);
+        } catch (SQLException e) {
+            System.err.println("Import chunk failed, retrying row by row: " + e.getMessage());
+        }
+
+        // Isolate the offending rows so the rest of the chunk still lands.
+        int inserted = 0;
+        int updated = superseded;
+        for (Row row : byKey.values()) {
+            try {
+                UpsertResult result = productDAO.upsertProducts(List.of(row.product()));
+                inserted += result.inserted();
+                updated += result.updated();
+            } catch (SQLException e) {
+                errors.reject(row.line(), e.getMessage(), row.fields());
+            }
+        }
+        return new UpsertResult(inserted, updated);
+    }
+
+    private static Map<String, Integer> readHeader(CsvReader csv) throws IOException {
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new IOException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.put(name, i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("CSV header is missing the '" + required + "' column");
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Maps one record to a product, applying the same rules as the {@code products} table
+     * constraints so that invalid rows are rejected here rather than failing a whole chunk.
+     */
+    static Product parse(List<String> fields, Map<String, Integer> columns) {
+        Product product = new Product();
+        product.setName(required(fields, columns, "name"));
+        product.setDescription(optional(fields, columns, "description"));
+        product.setCostPrice(nonNegativeDecimal(fields, columns, "cost_price"));
+        product.setSellingPrice(nonNegativeDecimal(fields, columns, "selling_price"));
+        product.setCategory(required(fields, columns, "category"));
+        product.setSupplier(optional(fields, columns, "supplier"));
+
+        String quantity = required(fields, columns, "quantity");
+        try {
+            int value = Integer.parseInt(quantity);
+            if (value < 0) {
+                throw new IllegalArgumentException("quantity must not be negative");
+            }
+            product.setQuantity(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity is not a whole number: " + quantity);
+        }
+
+        String expiry = optional(fields, columns, "expiry_date");
+        if (expiry != null) {
+            try {
+                product.setExpiryDate(LocalDate.parse(expiry));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("expiry_date is not a yyyy-MM-dd date: " + expiry);
+            }
+        }
+        return product;
+    }
+
+    private static String optional(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String required(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = optional(fields, columns, column);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    private static double nonNegativeDecimal(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = required(fields, columns, column);
+        double parsed;
+        try {
+            parsed = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+        if (!Double.isFinite(parsed) || parsed < 0) {
+            throw new IllegalArgumentException(column + " must be a non-negative number: " + value);
+        }
+        return parsed;
+    }
+
+    private static void joinQuietly(Thread thread, BlockingQueue<List<Row>> queue) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            // Make room in case the parser is blocked handing over a chunk nobody will take.
+            queue.clear();
+            try {
+                thread.join(100);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Row(long line, Product product, List<String> fields) {
+    }
+
+    private final class Parser implements Runnable {
+        private final CsvReader csv;
+        private final Map<String, Integer> columns;
+        private final ErrorReport errors;
+        private final BlockingQueue<List<Row>> queue;
+        volatile boolean cancelled;
+        long rowsRead;
+        IOException failure;
+
+        Parser(CsvReader csv, Map<String, Integer> columns, ErrorReport errors, BlockingQueue<List<Row>> queue) {
+            this.csv = csv;
+            this.columns = columns;
+            this.errors = errors;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Row> chunk = new ArrayList<>(chunkSize);
+                List<String> fields;
+                while (!cancelled && (fields = csv.readRecord()) != null) {
+                    if (fields.size() == 1 && fields.get(0).isBlank()) {
+                        continue;
+                    }
+                    rowsRead++;
+                    try {
+                        chunk.add(new Row(csv.getRecordLine(), parse(fields, columns), fields));
+                    } catch (IllegalArgumentException e) {
+                        errors.reject(csv.getRecordLine(), e.getMessage(), fields);
+                    }
+                    if (chunk.size() == chunkSize) {
+                        queue.put(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty() && !cancelled) {
+                    queue.put(chunk);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // Cancelled by the writer, which no longer waits for the end marker.
+            }
+        }
+    }
+
+    /**
+     * Rejected rows as CSV (line, error, then the original fields). The file is only created
+     * once the first row is rejected; both the parser and the writer append to it.
+     */
+    private static final class ErrorReport implements AutoCloseable {
+        private final Path path;
+        private BufferedWriter writer;
+        long count;
+
+        ErrorReport(Path path) {
+            this.path = path;
+        }
+
+        synchronized void reject(long line, String error, List<String> fields) {
+            count++;
+            if (path == null) {
+                return;
+            }
+            try {
+                if (writer == null) {
+                    writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                    writer.write("line,error,record");
+                    writer.newLine();
+                }
+                writer.write(line + "," + escape(error) + "," + escape(String.join(",", fields)));
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
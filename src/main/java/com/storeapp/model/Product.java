@@ -12,6 +12,8 @@ public class Product {
     private String category;
     private String supplier;
     private LocalDate expiryDate;
+    // Overrides the category and default reorder points when set.
+    private Integer reorderPoint;
 
     public Product() {}
 
@@ -28,6 +30,12 @@ public class Product {
         this.expiryDate = expiryDate;
     }
 
+    public Product(Product other) {
+        this(other.id, other.name, other.description, other.costPrice, other.sellingPrice, other.quantity,
+                other.category, other.supplier, other.expiryDate);
+        this.reorderPoint = other.reorderPoint;
+    }
+
     public int getId() {
         return id;
     }
@@ -108,6 +116,14 @@ public class Product {
         this.expiryDate = expiryDate;
     }
 
+    public Integer getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public void setReorderPoint(Integer reorderPoint) {
+        this.reorderPoint = reorderPoint;
+    }
+
     @Override
     public String toString() {
         return name + " ($" + sellingPrice + ")";
@@ -11,6 +11,8 @@ public class Sale {
     private double totalPrice;
     private LocalDateTime saleDate;
     private int userId;
+    // Product cost price per unit when the sale was made.
+    private double unitCost;
 
     public Sale() {}
 
@@ -86,4 +88,12 @@ public class Sale {
     public void setUserId(int userId) {
         this.userId = userId;
     }
+
+    public double getUnitCost() {
+        return unitCost;
+    }
+
+    public void setUnitCost(double unitCost) {
+        this.unitCost = unitCost;
+    }
 }
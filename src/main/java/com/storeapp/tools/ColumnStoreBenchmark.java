@@ -0,0 +1,164 @@
+package com.storeapp.tools;
+
+import com.storeapp.analytics.SalesAggregate;
+import com.storeapp.analytics.SalesColumnStore;
+import com.storeapp.dao.SaleFilter;
+import com.storeapp.model.Sale;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Aggregation time of {@link SalesColumnStore} scans, sequential and fork-join, against the
+ * per-{@link Sale} loops the analytics screen used to run over a {@code List<Sale>}. Sales are
+ * synthetic and spread over the last two years, so nothing touches the database.
+ *
+ * <pre>
+ * java -cp RetailStoreApp.jar com.storeapp.tools.ColumnStoreBenchmark [sales] [parallelism] [rounds]
+ * </pre>
+ */
+public class ColumnStoreBenchmark {
+
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Books", "Toys", "Garden"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        List<Sale> sales = generate(count);
+        SalesColumnStore sequential = new SalesColumnStore(1);
+        SalesColumnStore parallel = new SalesColumnStore(parallelism);
+        for (Sale sale : sales) {
+            sequential.append(sale);
+            parallel.append(sale);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        SaleFilter lastMonth = SaleFilter.ALL.withDateRange(now.minusDays(30), now);
+
+        // Untimed pass so the first measured query does not pay for JIT compilation.
+        run(sales, sequential, parallel, SaleFilter.ALL, rounds, false);
+        run(sales, sequential, parallel, lastMonth, rounds, false);
+
+        System.out.printf("%,d sales, parallelism %d, mean of %d rounds%n", count, parallelism, rounds);
+        System.out.printf("%-12s %-10s %12s %12s %12s%n", "filter", "query", "List<Sale>", "sequential", "fork-join");
+        run(sales, sequential, parallel, SaleFilter.ALL, rounds, true);
+        run(sales, sequential, parallel, lastMonth, rounds, true);
+    }
+
+    private static void run(List<Sale> sales, SalesColumnStore sequential, SalesColumnStore parallel,
+                            SaleFilter filter, int rounds, boolean report) {
+        String label = filter.from() == null ? "all" : "last 30 days";
+        compare(label, "totals", rounds, report,
+                () -> totals(sales, filter), () -> sequential.aggregate(filter), () -> parallel.aggregate(filter));
+        compare(label, "product", rounds, report,
+                () -> unitsByProduct(sales, filter), () -> sequential.unitsByProduct(filter),
+                () -> parallel.unitsByProduct(filter));
+        compare(label, "category", rounds, report,
+                () -> unitsByCategory(sales, filter), () -> sequential.unitsByCategory(filter),
+                () -> parallel.unitsByCategory(filter));
+        compare(label, "user", rounds, report,
+                () -> revenueByUser(sales, filter), () -> sequential.salesByUser(filter),
+                () -> parallel.salesByUser(filter));
+    }
+
+    private static void compare(String label, String query, int rounds, boolean report,
+                                Supplier<?> list, Supplier<?> sequential, Supplier<?> parallel) {
+        double listMs = time(list, rounds);
+        double sequentialMs = time(sequential, rounds);
+        double parallelMs = time(parallel, rounds);
+        if (report) {
+            System.out.printf("%-12s %-10s %10.2fms %10.2fms %10.2fms%n", label, query, listMs, sequentialMs, parallelMs);
+        }
+    }
+
+    private static double time(Supplier<?> query, int rounds) {
+        Object sink = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink = query.get();
+        }
+        double ms = (System.nanoTime() - start) / 1e6 / rounds;
+        if (sink == null) {
+            throw new IllegalStateException("No result");
+        }
+        return ms;
+    }
+
+    // The loops below mirror what the analytics screen did before the column store.
+
+    private static SalesAggregate totals(List<Sale> sales, SaleFilter filter) {
+        long count = 0;
+        long units = 0;
+        double revenue = 0;
+        for (Sale sale : sales) {
+            if (matches(sale, filter)) {
+                count++;
+                units += sale.getQuantity();
+                revenue += sale.getTotalPrice();
+            }
+        }
+        return new SalesAggregate(count, units, Math.round(revenue * 100));
+    }
+
+    private static Map<Integer, Integer> unitsByProduct(List<Sale> sales, SaleFilter filter) {
+        Map<Integer, Integer> units = new HashMap<>();
+        for (Sale sale : sales) {
+            if (matches(sale, filter)) {
+                units.merge(sale.getProductId(), sale.getQuantity(), Integer::sum);
+            }
+        }
+        return units;
+    }
+
+    private static Map<String, Integer> unitsByCategory(List<Sale> sales, SaleFilter filter) {
+        Map<String, Integer> units = new HashMap<>();
+        for (Sale sale : sales) {
+            if (matches(sale, filter) && sale.getCategory() != null) {
+                units.merge(sale.getCategory(), sale.getQuantity(), Integer::sum);
+            }
+        }
+        return units;
+    }
+
+    private static Map<Integer, Double> revenueByUser(List<Sale> sales, SaleFilter filter) {
+        Map<Integer, Double> revenue = new HashMap<>();
+        for (Sale sale : sales) {
+            if (matches(sale, filter)) {
+                revenue.merge(sale.getUserId(), sale.getTotalPrice(), Double::sum);
+            }
+        }
+        return revenue;
+    }
+
+    private static boolean matches(Sale sale, SaleFilter filter) {
+        LocalDateTime date = sale.getSaleDate();
+        return (filter.from() == null || !date.isBefore(filter.from()))
+                && (filter.to() == null || !date.isAfter(filter.to()));
+    }
+
+    private static List<Sale> generate(int count) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(730);
+        long spanSeconds = 730L * 24 * 3600;
+        List<Sale> sales = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int productId = 1 + random.nextInt(500);
+            int quantity = 1 + random.nextInt(5);
+            // Ids and dates rise together, as they do in the sales table.
+            LocalDateTime date = start.plusSeconds(spanSeconds * i / count);
+            Sale sale = new Sale(i + 1, productId, quantity, quantity * (1 + productId % 50) * 0.99, date,
+                    1 + random.nextInt(20));
+            sale.setProductName("Product " + productId);
+            sale.setCategory(CATEGORIES[productId % CATEGORIES.length]);
+            sales.add(sale);
+        }
+        return sales;
+    }
+}
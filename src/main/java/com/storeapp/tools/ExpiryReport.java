@@ -0,0 +1,48 @@
+package com.storeapp.tools;
+
+import com.storeapp.dao.ExpiryItem;
+import com.storeapp.dao.ProductDAO;
+import com.storeapp.db.Database;
+
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lists the products in stock that have expired or expire within the given number of days
+ * (default {@code expiry.warningDays}) as CSV on standard output, soonest first. Reads the
+ * database through the expiry index without loading the catalog.
+ *
+ * <pre>
+ * java -cp RetailStoreApp.jar com.storeapp.tools.ExpiryReport [days]
+ * </pre>
+ */
+public class ExpiryReport {
+
+    public static void main(String[] args) throws Exception {
+        try {
+            int days = args.length > 0 ? Integer.parseInt(args[0]) : Database.getConfig().getExpiryWarningDays();
+            LocalDate today = LocalDate.now();
+            List<ExpiryItem> items = new ProductDAO().queryExpiring(null, today.plusDays(days + 1L));
+
+            PrintWriter out = new PrintWriter(System.out);
+            out.println("product_id,name,category,quantity,expiry_date,days_left");
+            for (ExpiryItem item : items) {
+                out.printf("%d,%s,%s,%d,%s,%d%n", item.productId(), csv(item.productName()), csv(item.category()),
+                        item.quantity(), item.expiryDate(), item.daysLeft(today));
+            }
+            out.flush();
+        } finally {
+            Database.closeConnection();
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.contains(",") || value.contains("\"") || value.contains("\n")
+                ? "\"" + value.replace("\"", "\"\"") + "\""
+                : value;
+    }
+}
@@ -0,0 +1,43 @@
+package com.storeapp.tools;
+
+import com.storeapp.db.Database;
+import com.storeapp.importer.ImportReport;
+import com.storeapp.importer.ProductImporter;
+
+import java.nio.file.Path;
+
+/**
+ * Headless catalog import, for scheduled supplier feeds that should not need the UI.
+ * Uses the same database and {@code app.properties} settings as the application.
+ *
+ * <pre>
+ * java -cp RetailStoreApp.jar com.storeapp.tools.ProductImportTool products.csv [errors.csv]
+ * </pre>
+ */
+public class ProductImportTool {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: ProductImportTool <products.csv> [error-report.csv]");
+            System.exit(2);
+        }
+        Path csv = Path.of(args[0]);
+        Path errors = args.length > 1 ? Path.of(args[1]) : Path.of(args[0] + ".errors.csv");
+
+        int status = 0;
+        try {
+            ImportReport report = new ProductImporter().importFile(csv, errors);
+            System.out.println(report);
+            if (report.rejected() > 0) {
+                status = 1;
+            }
+        } catch (Exception e) {
+            System.err.println("Import failed: " + e.getMessage());
+            e.printStackTrace();
+            status = 2;
+        } finally {
+            Database.closeConnection();
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,138 @@
+package com.storeapp.tools;
+
+import com.storeapp.dao.ProductDAO;
+import com.storeapp.db.Database;
+import com.storeapp.db.DatabaseConfig;
+import com.storeapp.model.Product;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Query time of {@link ProductDAO#search} on the {@code products_fts} index against a
+ * {@code LIKE '%text%'} scan of the same four columns, on a temporary database filled with
+ * synthetic products. The scan is timed twice: stopping at the first {@code limit} rows, which
+ * is cheap for common words but cannot rank, and reading every match, which a ranked or
+ * complete result needs.
+ *
+ * <pre>
+ * java -cp RetailStoreApp.jar com.storeapp.tools.ProductSearchBenchmark [products] [limit] [rounds]
+ * </pre>
+ */
+public class ProductSearchBenchmark {
+
+    private static final String[] WORDS = {"Organic", "Whole", "Milk", "Bread", "Cheddar", "Apple", "Juice",
+            "Chicken", "Rice", "Pasta", "Tomato", "Sauce", "Coffee", "Green", "Tea", "Chocolate", "Yogurt",
+            "Butter", "Cereal", "Soap", "Shampoo", "Battery", "Charger", "Cable", "Notebook"};
+    private static final String[] CATEGORIES = {"Dairy", "Bakery", "Produce", "Beverages", "Household",
+            "Electronics", "Pantry", "Stationery"};
+    private static final String[] QUERIES = {"cheddar", "che", "green tea", "\"green tea\"", "dairy",
+            "supplier 42", "notebook cable", "zzz"};
+    private static final String LIKE_SCAN =
+            "SELECT * FROM products WHERE name LIKE ? OR description LIKE ? OR category LIKE ? OR supplier LIKE ? "
+                    + "LIMIT ?";
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Path dir = Files.createTempDirectory("storeapp-bench");
+        try {
+            Database.configure(new DatabaseConfig(new Properties())
+                    .with("db.path", dir.resolve("bench.db").toString()));
+            ProductDAO productDAO = new ProductDAO();
+            long start = System.nanoTime();
+            productDAO.upsertProducts(generate(count));
+            System.out.printf("%,d products inserted and indexed in %.0f ms; limit %d, mean of %d rounds%n",
+                    count, (System.nanoTime() - start) / 1e6, limit, rounds);
+
+            // Untimed pass so the first measured query does not pay for JIT compilation.
+            for (String query : QUERIES) {
+                productDAO.search(query, limit);
+                likeScan(query, limit);
+            }
+
+            System.out.printf("%-16s %10s %8s %10s %8s %10s %8s%n", "query", "fts5", "rows", "like", "rows",
+                    "like all", "rows");
+            for (String query : QUERIES) {
+                int ftsRows = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    ftsRows = productDAO.search(query, limit).size();
+                }
+                double ftsMs = (System.nanoTime() - start) / 1e6 / rounds;
+
+                int likeRows = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    likeRows = likeScan(query, limit);
+                }
+                double likeMs = (System.nanoTime() - start) / 1e6 / rounds;
+
+                int allRows = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    allRows = likeScan(query, -1);
+                }
+                double allMs = (System.nanoTime() - start) / 1e6 / rounds;
+                System.out.printf("%-16s %8.2fms %8d %8.2fms %8d %8.2fms %8d%n", query, ftsMs, ftsRows, likeMs,
+                        likeRows, allMs, allRows);
+            }
+        } finally {
+            Database.closeConnection();
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * The substring scan the product screen's filter did, run in SQL; a negative limit reads
+     * every match. Quotes are stripped, as LIKE has no phrase syntax.
+     */
+    private static int likeScan(String query, int limit) throws SQLException {
+        String pattern = "%" + query.replace("\"", "") + "%";
+        int rows = 0;
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(LIKE_SCAN)) {
+            for (int i = 1; i <= 4; i++) {
+                stmt.setString(i, pattern);
+            }
+            stmt.setInt(5, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static List<Product> generate(int count) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            String description = "Pack of " + (1 + random.nextInt(12)) + ", " + WORDS[random.nextInt(WORDS.length)]
+                    .toLowerCase() + " flavour";
+            products.add(new Product(0, name, description, 1 + random.nextInt(50), 2 + random.nextInt(100),
+                    random.nextInt(200), CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    "Supplier " + random.nextInt(500), null));
+        }
+        return products;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
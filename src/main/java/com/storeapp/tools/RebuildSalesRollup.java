@@ -0,0 +1,32 @@
+package com.storeapp.tools;
+
+import com.storeapp.dao.SalesRollup;
+import com.storeapp.db.Database;
+
+/**
+ * Recomputes {@code sales_daily_rollup} from the sales table, for use after sales were
+ * changed outside the application or restored from a backup.
+ *
+ * <pre>
+ * java -cp RetailStoreApp.jar com.storeapp.tools.RebuildSalesRollup
+ * </pre>
+ */
+public class RebuildSalesRollup {
+
+    public static void main(String[] args) {
+        int status = 0;
+        try {
+            long start = System.nanoTime();
+            int rows = SalesRollup.rebuild();
+            System.out.printf("Rebuilt sales_daily_rollup: %d day/product/employee rows in %.1f ms%n",
+                    rows, (System.nanoTime() - start) / 1e6);
+        } catch (Exception e) {
+            System.err.println("Rollup rebuild failed: " + e.getMessage());
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            Database.closeConnection();
+        }
+        System.exit(status);
+    }
+}
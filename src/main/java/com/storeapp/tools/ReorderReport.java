@@ -0,0 +1,58 @@
+package com.storeapp.tools;
+
+import com.storeapp.dao.LowStockItem;
+import com.storeapp.dao.ProductDAO;
+import com.storeapp.db.Database;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes the products below their reorder point as CSV, largest shortfall first, to a file or
+ * to standard output.
+ *
+ * <pre>
+ * java -cp RetailStoreApp.jar com.storeapp.tools.ReorderReport [report.csv]
+ * </pre>
+ */
+public class ReorderReport {
+
+    public static void main(String[] args) throws Exception {
+        try {
+            List<LowStockItem> items = new ProductDAO().getLowStock();
+            if (args.length > 0) {
+                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8))) {
+                    write(items, out);
+                }
+                System.out.printf("%d product(s) to reorder written to %s%n", items.size(), args[0]);
+            } else {
+                PrintWriter out = new PrintWriter(System.out);
+                write(items, out);
+                out.flush();
+            }
+        } finally {
+            Database.closeConnection();
+        }
+    }
+
+    private static void write(List<LowStockItem> items, PrintWriter out) throws IOException {
+        out.println("product_id,name,category,quantity,reorder_point,shortfall");
+        for (LowStockItem item : items) {
+            out.printf("%d,%s,%s,%d,%d,%d%n", item.productId(), csv(item.productName()), csv(item.category()),
+                    item.quantity(), item.reorderPoint(), item.shortfall());
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.contains(",") || value.contains("\"") || value.contains("\n")
+                ? "\"" + value.replace("\"", "\"\"") + "\""
+                : value;
+    }
+}
@@ -0,0 +1,105 @@
+package com.storeapp.tools;
+
+import com.storeapp.dao.BatchResult;
+import com.storeapp.dao.SaleDAO;
+import com.storeapp.db.Database;
+import com.storeapp.db.DatabaseConfig;
+import com.storeapp.db.SqliteProfile;
+import com.storeapp.model.Sale;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Write/read throughput of {@link SaleDAO#addSale}, batched {@link SaleDAO#addSales} and
+ * {@link SaleDAO#getAllSales} under each {@link SqliteProfile.Preset}, each run against a fresh
+ * temporary database file.
+ *
+ * <pre>
+ * java -cp RetailStoreApp.jar com.storeapp.tools.SaleThroughputBenchmark [inserts] [reads] [preset...]
+ * </pre>
+ */
+public class SaleThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int inserts = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int reads = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        SqliteProfile.Preset[] presets = SqliteProfile.Preset.values();
+        if (args.length > 2) {
+            presets = new SqliteProfile.Preset[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                presets[i - 2] = SqliteProfile.Preset.valueOf(args[i].toUpperCase());
+            }
+        }
+
+        // Untimed pass so the first measured preset does not pay for JIT compilation.
+        run(SqliteProfile.Preset.PERFORMANCE, inserts, reads, false);
+
+        System.out.printf("%-12s %14s %14s %14s %14s%n", "profile", "inserts/s", "batch rows/s", "reads/s", "rows/s read");
+        for (SqliteProfile.Preset preset : presets) {
+            run(preset, inserts, reads, true);
+        }
+    }
+
+    private static void run(SqliteProfile.Preset preset, int inserts, int reads, boolean report) throws Exception {
+        Path dir = Files.createTempDirectory("storeapp-bench");
+        try {
+            // Start from an empty config so pragma overrides in app.properties don't mask the preset.
+            DatabaseConfig config = new DatabaseConfig(new Properties())
+                    .with("db.path", dir.resolve("bench.db").toString())
+                    .with("db.profile", preset.name());
+            Database.configure(config);
+            SaleDAO saleDAO = new SaleDAO();
+
+            // Warm up the pool and the page cache before timing.
+            for (int i = 0; i < Math.min(100, inserts); i++) {
+                saleDAO.addSale(newSale(i));
+            }
+            saleDAO.getAllSales();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < inserts; i++) {
+                saleDAO.addSale(newSale(i));
+            }
+            double insertSeconds = (System.nanoTime() - start) / 1e9;
+
+            List<Sale> batch = new ArrayList<>(inserts);
+            for (int i = 0; i < inserts; i++) {
+                batch.add(newSale(i));
+            }
+            BatchResult batchResult = saleDAO.addSales(batch);
+
+            long rows = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                rows += saleDAO.getAllSales().size();
+            }
+            double readSeconds = (System.nanoTime() - start) / 1e9;
+
+            if (report) {
+                System.out.printf("%-12s %14.0f %14.0f %14.1f %14.0f%n", preset, inserts / insertSeconds,
+                        batchResult.rowsPerSecond(), reads / readSeconds, rows / readSeconds);
+                System.out.println("             " + Database.getPool().getStats());
+            }
+        } finally {
+            Database.closeConnection();
+            deleteRecursively(dir);
+        }
+    }
+
+    private static Sale newSale(int i) {
+        return new Sale(0, 1 + i % 5, 1 + i % 3, 19.99 * (1 + i % 3), LocalDateTime.now().minusMinutes(i), 1);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.storeapp.ui;
 
+import com.storeapp.dao.DaoExecutor;
+import com.storeapp.dao.ProductCatalog;
+import com.storeapp.dao.QueryCache;
+import com.storeapp.db.Database;
+import com.storeapp.util.FxAsync;
 import com.storeapp.util.SceneUtil;
 import com.storeapp.util.UserSession;
 import javafx.event.ActionEvent;
@@ -41,6 +46,9 @@ public class AdminDashboardController implements Initializable {
     @FXML
     private HBox adminOnlySection;
 
+    @FXML
+    private Label cacheStatsLabel;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         UserSession session = UserSession.getInstance();
@@ -59,12 +67,26 @@ public class AdminDashboardController implements Initializable {
         if (session.isAdmin()) {
             adminOnlySection.setVisible(true);
             adminOnlySection.setManaged(true);
+            showCacheStats();
         } else {
             adminOnlySection.setVisible(false);
             adminOnlySection.setManaged(false);
         }
     }
 
+    /**
+     * Hit rates of the query cache and the product catalog, and connection pool usage, as of
+     * this visit to the dashboard.
+     */
+    private void showCacheStats() {
+        FxAsync.deliver(DaoExecutor.supply(() -> QueryCache.shared().getStats() + "\n"
+                + ProductCatalog.shared().getStats() + "\n" + Database.getPool().getStats()), stats -> {
+            cacheStatsLabel.setText(stats);
+            cacheStatsLabel.setVisible(true);
+            cacheStatsLabel.setManaged(true);
+        });
+    }
+
     @FXML
     public void handleProducts(ActionEvent event) {
         loadView("/fxml/product_list.fxml");
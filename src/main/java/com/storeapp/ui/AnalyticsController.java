@@ -1,24 +1,51 @@
 package com.storeapp.ui;
 
-import com.storeapp.dao.SaleDAO;
-import com.storeapp.model.Sale;
+import com.storeapp.analytics.AnalyticsEngine;
+import com.storeapp.analytics.AnalyticsSnapshot;
+import com.storeapp.analytics.BestSeller;
+import com.storeapp.analytics.BestSellerWindow;
+import com.storeapp.analytics.BestSellers;
+import com.storeapp.analytics.Downsampling;
+import com.storeapp.analytics.SalesSketches;
+import com.storeapp.dao.AnalyticsDAO;
+import com.storeapp.dao.CategoryUnits;
+import com.storeapp.dao.GrossMargin;
+import com.storeapp.dao.MarginDimension;
+import com.storeapp.dao.RevenuePoint;
+import com.storeapp.dao.TimeBucket;
+import com.storeapp.util.FxAsync;
 import com.storeapp.util.SceneUtil;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.StringConverter;
 
 import java.net.URL;
-import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.*;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class AnalyticsController implements Initializable {
 
@@ -49,122 +76,334 @@ public class AnalyticsController implements Initializable {
     @FXML
     private PieChart categoryPieChart;
 
-    private SaleDAO saleDAO = new SaleDAO();
+    @FXML
+    private ComboBox<BestSellerWindow> bestSellersWindowCombo;
+
+    @FXML
+    private Label bestSellersAccuracyLabel;
+
+    @FXML
+    private DatePicker revenueFromPicker;
+
+    @FXML
+    private DatePicker revenueToPicker;
+
+    @FXML
+    private ComboBox<TimeBucket> revenueBucketCombo;
+
+    @FXML
+    private LineChart<Number, Number> revenueChart;
+
+    @FXML
+    private NumberAxis revenueXAxis;
+
+    @FXML
+    private Label revenuePointsLabel;
+
+    @FXML
+    private Label distinctProductsLabel;
+
+    @FXML
+    private Label activeCashiersLabel;
+
+    @FXML
+    private Label medianTicketLabel;
+
+    @FXML
+    private Label p95TicketLabel;
+
+    @FXML
+    private Label distributionAccuracyLabel;
+
+    @FXML
+    private ComboBox<MarginDimension> marginDimensionCombo;
+
+    @FXML
+    private TableView<GrossMargin> marginTable;
+
+    @FXML
+    private TableColumn<GrossMargin, String> marginGroupColumn;
+
+    @FXML
+    private TableColumn<GrossMargin, String> marginUnitsColumn;
+
+    @FXML
+    private TableColumn<GrossMargin, String> marginRevenueColumn;
+
+    @FXML
+    private TableColumn<GrossMargin, String> marginCostColumn;
+
+    @FXML
+    private TableColumn<GrossMargin, String> marginProfitColumn;
+
+    @FXML
+    private TableColumn<GrossMargin, String> marginPercentColumn;
+
+    @FXML
+    private Label marginTotalLabel;
+
+    private static final int TOP_PRODUCTS = 10;
+    private static final int DEFAULT_REVENUE_DAYS = 30;
+    // Used until the chart has been laid out and has a real width.
+    private static final int DEFAULT_CHART_WIDTH = 1000;
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:00");
+
+    private final AnalyticsDAO analyticsDAO = new AnalyticsDAO();
+    private int revenueRequest;
+    private int distributionRequest;
+    private int marginRequest;
+    private int bestSellersRequest;
+
+    private AnalyticsEngine engine;
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    // Sales can land far faster than the screen repaints; at most one refresh is queued at a time.
+    private final Runnable onChange = () -> {
+        if (refreshQueued.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                refreshQueued.set(false);
+                render(engine.snapshot());
+            });
+        }
+    };
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        loadAnalytics();
-        loadUnitsSoldChart();
-        loadCategoryPieChart();
+        bestSellersWindowCombo.setItems(FXCollections.observableArrayList(BestSellerWindow.values()));
+        bestSellersWindowCombo.setValue(BestSellerWindow.ALL_TIME);
+        revenueBucketCombo.setItems(FXCollections.observableArrayList(TimeBucket.values()));
+        revenueBucketCombo.setValue(TimeBucket.DAY);
+        revenueToPicker.setValue(LocalDate.now());
+        revenueFromPicker.setValue(LocalDate.now().minusDays(DEFAULT_REVENUE_DAYS - 1));
+        marginDimensionCombo.setItems(FXCollections.observableArrayList(MarginDimension.values()));
+        marginDimensionCombo.setValue(MarginDimension.PRODUCT);
+        setMarginColumn(marginGroupColumn, GrossMargin::group);
+        setMarginColumn(marginUnitsColumn, margin -> String.valueOf(margin.units()));
+        setMarginColumn(marginRevenueColumn, margin -> String.format("$%.2f", margin.revenue()));
+        setMarginColumn(marginCostColumn, margin -> String.format("$%.2f", margin.cost()));
+        setMarginColumn(marginProfitColumn, margin -> String.format("$%.2f", margin.grossProfit()));
+        setMarginColumn(marginPercentColumn, margin -> formatPercent(margin.marginPercent()));
+        loadRevenueChart();
+        loadDistribution();
+        loadMargins();
+        FxAsync.deliver(AnalyticsEngine.shared(), shared -> {
+            engine = shared;
+            engine.addListener(onChange);
+            render(engine.snapshot());
+        });
     }
 
-    private void loadAnalytics() {
-        try {
-            List<Sale> allSales = saleDAO.getAllSales();
-            int totalSales = allSales.size();
-            double totalRevenue = allSales.stream()
-                    .mapToDouble(Sale::getTotalPrice)
-                    .sum();
-
-            LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime endOfDay = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
-            List<Sale> todaySales = saleDAO.getSalesByDateRange(startOfDay, endOfDay);
-            int todaySalesCount = todaySales.size();
-            double todayRevenue = todaySales.stream()
-                    .mapToDouble(Sale::getTotalPrice)
-                    .sum();
-
-            totalSalesLabel.setText(String.valueOf(totalSales));
-            totalRevenueLabel.setText(String.format("$%.2f", totalRevenue));
-            todaySalesLabel.setText(String.valueOf(todaySalesCount));
-            todayRevenueLabel.setText(String.format("$%.2f", todayRevenue));
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    private void render(AnalyticsSnapshot snapshot) {
+        showKpis(snapshot);
+        loadBestSellers();
+        showCategoryPieChart(snapshot.unitsByCategory());
     }
 
-    private void loadUnitsSoldChart() {
-        try {
-            List<Sale> allSales = saleDAO.getAllSales();
+    private void showKpis(AnalyticsSnapshot snapshot) {
+        totalSalesLabel.setText(String.valueOf(snapshot.totalSales()));
+        totalRevenueLabel.setText(String.format("$%.2f", snapshot.totalRevenue()));
+        todaySalesLabel.setText(String.valueOf(snapshot.daySales()));
+        todayRevenueLabel.setText(String.format("$%.2f", snapshot.dayRevenue()));
+    }
 
-            Map<Integer, Integer> productSales = new HashMap<>();
-            Map<Integer, String> productNames = new HashMap<>();
+    @FXML
+    public void handleBestSellersWindow(ActionEvent event) {
+        if (engine != null) {
+            loadBestSellers();
+        }
+    }
 
-            for (Sale sale : allSales) {
-                productSales.merge(sale.getProductId(), sale.getQuantity(), Integer::sum);
-                if (!productNames.containsKey(sale.getProductId())) {
-                    productNames.put(sale.getProductId(), sale.getProductName());
-                }
+    private void loadBestSellers() {
+        int request = ++bestSellersRequest;
+        FxAsync.deliver(engine.bestSellersAsync(bestSellersWindowCombo.getValue(), TOP_PRODUCTS), bestSellers -> {
+            if (request == bestSellersRequest) {
+                showUnitsSoldChart(bestSellers);
             }
+        });
+    }
 
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            series.setName("Units Sold");
+    private void showUnitsSoldChart(BestSellers bestSellers) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName("Units Sold");
 
-            productSales.entrySet().stream()
-                    .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed())
-                    .limit(10)
-                    .forEach(entry -> {
-                        String productName = productNames.getOrDefault(entry.getKey(), "Unknown");
-                        String displayName = productName.length() > 15 ? productName.substring(0, 12) + "..." : productName;
-                        series.getData().add(new XYChart.Data<>(displayName, entry.getValue()));
-                    });
+        for (BestSeller product : bestSellers.products()) {
+            String productName = product.productName() != null ? product.productName() : "Unknown";
+            String displayName = productName.length() > 15 ? productName.substring(0, 12) + "..." : productName;
+            series.getData().add(new XYChart.Data<>(displayName, product.units()));
+        }
 
-            unitsBarChart.getData().clear();
-            unitsBarChart.getData().add(series);
-            unitsBarChart.setLegendVisible(false);
+        unitsBarChart.getData().clear();
+        unitsBarChart.getData().add(series);
+        unitsBarChart.setLegendVisible(false);
 
-            xAxis.setLabel("Product Name");
-            yAxis.setLabel("Units Sold");
-            xAxis.setTickLabelRotation(45);
+        xAxis.setLabel("Product Name");
+        yAxis.setLabel("Units Sold");
+        xAxis.setTickLabelRotation(45);
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+        bestSellersAccuracyLabel.setText(bestSellers.isExact()
+                ? "Exact counts"
+                : String.format("Estimated: counts may be high by up to %d units", bestSellers.maxError()));
+    }
+
+    private void showCategoryPieChart(List<CategoryUnits> categories) {
+        if (categories.isEmpty()) {
+            return;
+        }
+
+        long totalQuantity = categories.stream()
+                .mapToLong(CategoryUnits::units)
+                .sum();
+
+        ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
+
+        for (CategoryUnits category : categories) {
+            double percentage = (category.units() * 100.0) / totalQuantity;
+            pieChartData.add(new PieChart.Data(
+                    category.category() + " (" + String.format("%.1f%%", percentage) + ")",
+                    category.units()
+            ));
         }
+
+        categoryPieChart.setData(pieChartData);
+        categoryPieChart.setLabelsVisible(true);
+        categoryPieChart.setLegendVisible(false);
     }
 
-    private void loadCategoryPieChart() {
-        try {
-            List<Sale> allSales = saleDAO.getAllSales();
+    @FXML
+    public void handleRevenueRange(ActionEvent event) {
+        loadRevenueChart();
+        loadDistribution();
+        loadMargins();
+    }
+
+    /**
+     * Revenue per bucket for the chosen range, cut down with LTTB to one point per horizontal
+     * pixel so an hourly year draws as quickly as a week.
+     */
+    private void loadRevenueChart() {
+        LocalDate from = revenueFromPicker.getValue();
+        LocalDate to = revenueToPicker.getValue();
+        TimeBucket bucket = revenueBucketCombo.getValue();
+        if (from == null || to == null || bucket == null || to.isBefore(from)) {
+            return;
+        }
+        int maxPoints = (int) (revenueChart.getWidth() > 0 ? revenueChart.getWidth() : DEFAULT_CHART_WIDTH);
+        int request = ++revenueRequest;
 
-            if (allSales.isEmpty()) {
+        FxAsync.deliver(analyticsDAO.getRevenueSeriesAsync(from, to, bucket).thenApply(series ->
+                new RevenueChartData(series.size(), Downsampling.lttb(series, maxPoints,
+                        point -> toEpochSecond(point.start()), RevenuePoint::revenue))), data -> {
+            if (request != revenueRequest) {
                 return;
             }
 
-            Map<String, Integer> categoryQuantities = new HashMap<>();
+            XYChart.Series<Number, Number> series = new XYChart.Series<>();
+            for (RevenuePoint point : data.points()) {
+                series.getData().add(new XYChart.Data<>(toEpochSecond(point.start()), point.revenue()));
+            }
+            DateTimeFormatter format = bucket == TimeBucket.HOUR ? HOUR_FORMAT : DAY_FORMAT;
+            revenueXAxis.setTickLabelFormatter(new StringConverter<>() {
+                @Override
+                public String toString(Number value) {
+                    return format.format(Instant.ofEpochSecond(value.longValue()).atZone(ZoneId.systemDefault()));
+                }
 
-            for (Sale sale : allSales) {
-                String category = sale.getCategory();
-                if (category != null) {
-                    categoryQuantities.merge(category, sale.getQuantity(), Integer::sum);
+                @Override
+                public Number fromString(String text) {
+                    return null;
                 }
+            });
+            revenueChart.getData().setAll(List.of(series));
+            revenuePointsLabel.setText(String.format("%d %s buckets, %d points drawn",
+                    data.buckets(), bucket.toString().toLowerCase(), data.points().size()));
+        });
+    }
+
+    /**
+     * Distinct products and cashiers and ticket-value percentiles over the revenue chart's
+     * dates, merged from per-day sketches.
+     */
+    private void loadDistribution() {
+        LocalDate from = revenueFromPicker.getValue();
+        LocalDate to = revenueToPicker.getValue();
+        if (from == null || to == null || to.isBefore(from)) {
+            return;
+        }
+        int request = ++distributionRequest;
+
+        FxAsync.deliver(SalesSketches.shared().summarizeAsync(from, to), distribution -> {
+            if (request != distributionRequest) {
+                return;
             }
+            distinctProductsLabel.setText(String.valueOf(distribution.distinctProducts()));
+            activeCashiersLabel.setText(String.valueOf(distribution.distinctCashiers()));
+            medianTicketLabel.setText(formatTicket(distribution.medianTicket()));
+            p95TicketLabel.setText(formatTicket(distribution.p95Ticket()));
+            distributionAccuracyLabel.setText(String.format(
+                    "%d sales. Estimated: distinct counts within about %.1f%%, percentiles within %.1f%% of rank",
+                    distribution.sales(), SalesSketches.DISTINCT_ERROR * 100, SalesSketches.QUANTILE_RANK_ERROR * 100));
+        });
+    }
 
-            int totalQuantity = categoryQuantities.values().stream()
-                    .mapToInt(Integer::intValue)
-                    .sum();
+    @FXML
+    public void handleMarginDimension(ActionEvent event) {
+        loadMargins();
+    }
 
-            ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
+    /**
+     * Gross profit per product, category, day or employee over the revenue chart's dates,
+     * summed by SQLite from the daily rollup.
+     */
+    private void loadMargins() {
+        LocalDate from = revenueFromPicker.getValue();
+        LocalDate to = revenueToPicker.getValue();
+        MarginDimension dimension = marginDimensionCombo.getValue();
+        if (from == null || to == null || dimension == null || to.isBefore(from)) {
+            return;
+        }
+        int request = ++marginRequest;
 
-            categoryQuantities.forEach((category, quantity) -> {
-                double percentage = (quantity * 100.0) / totalQuantity;
-                pieChartData.add(new PieChart.Data(
-                        category + " (" + String.format("%.1f%%", percentage) + ")",
-                        quantity
-                ));
-            });
+        FxAsync.deliver(analyticsDAO.getGrossMarginsAsync(dimension, from, to), margins -> {
+            if (request != marginRequest) {
+                return;
+            }
+            marginTable.setItems(FXCollections.observableArrayList(margins));
+            GrossMargin total = new GrossMargin("Total",
+                    margins.stream().mapToLong(GrossMargin::saleCount).sum(),
+                    margins.stream().mapToLong(GrossMargin::units).sum(),
+                    margins.stream().mapToDouble(GrossMargin::revenue).sum(),
+                    margins.stream().mapToDouble(GrossMargin::cost).sum());
+            marginTotalLabel.setText(String.format("%d sales: revenue $%.2f, cost $%.2f, gross profit $%.2f (%s)",
+                    total.saleCount(), total.revenue(), total.cost(), total.grossProfit(),
+                    formatPercent(total.marginPercent())));
+        });
+    }
 
-            categoryPieChart.setData(pieChartData);
-            categoryPieChart.setLabelsVisible(true);
-            categoryPieChart.setLegendVisible(false);
+    private static void setMarginColumn(TableColumn<GrossMargin, String> column,
+                                        Function<GrossMargin, String> text) {
+        column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(text.apply(cell.getValue())));
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    private static String formatPercent(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.1f%%", value);
+    }
+
+    private static String formatTicket(double value) {
+        return Double.isNaN(value) ? "-" : String.format("$%.2f", value);
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private record RevenueChartData(int buckets, List<RevenuePoint> points) {
     }
 
     @FXML
     public void handleBack(javafx.event.ActionEvent event) {
+        if (engine != null) {
+            engine.removeListener(onChange);
+        }
         loadView("/fxml/admin_dashboard.fxml");
     }
 
@@ -2,6 +2,7 @@ package com.storeapp.ui;
 
 import com.storeapp.dao.UserDAO;
 import com.storeapp.model.User;
+import com.storeapp.util.FxAsync;
 import com.storeapp.util.SceneUtil;
 import com.storeapp.util.UserSession;
 import javafx.event.ActionEvent;
@@ -12,8 +13,6 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
-
 public class LoginController {
 
     private static final String APP_TITLE = "Retail Store Management System";
@@ -70,18 +69,21 @@ public class LoginController {
             return;
         }
 
-        try {
-            User user = userDAO.authenticate(username, password);
+        loginButton.setDisable(true);
+        messageLabel.setText("Signing in...");
+        FxAsync.deliver(userDAO.authenticateAsync(username, password), user -> {
+            loginButton.setDisable(false);
             if (user != null) {
                 messageLabel.setText("Login successful!");
                 loadDashboard(user);
             } else {
                 messageLabel.setText("Invalid credentials");
             }
-        } catch (SQLException e) {
-            messageLabel.setText("Database error: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            loginButton.setDisable(false);
+            messageLabel.setText("Database error: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
 
     private void loadDashboard(User user) {
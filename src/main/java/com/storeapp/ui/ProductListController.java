@@ -1,9 +1,18 @@
 package com.storeapp.ui;
 
+import com.storeapp.dao.ExpiryAlert;
+import com.storeapp.dao.ExpiryAlerts;
+import com.storeapp.dao.ExpiryItem;
+import com.storeapp.dao.LowStockItem;
 import com.storeapp.dao.ProductDAO;
+import com.storeapp.dao.StockAlert;
+import com.storeapp.dao.StockAlerts;
+import com.storeapp.db.Database;
 import com.storeapp.model.Product;
 import com.storeapp.util.AlertUtil;
+import com.storeapp.util.FxAsync;
 import com.storeapp.util.SceneUtil;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -14,7 +23,15 @@ import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.net.URL;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class ProductListController implements Initializable {
 
@@ -39,6 +56,9 @@ public class ProductListController implements Initializable {
     @FXML
     private TableColumn<Product, String> categoryColumn;
 
+    @FXML
+    private TableColumn<Product, LocalDate> expiryColumn;
+
     @FXML
     private TextField nameField;
 
@@ -57,6 +77,12 @@ public class ProductListController implements Initializable {
     @FXML
     private TextField searchField;
 
+    @FXML
+    private ComboBox<String> expiryFilter;
+
+    @FXML
+    private Label expiryWarning;
+
     @FXML
     private Label lowStockWarning;
 
@@ -75,9 +101,23 @@ public class ProductListController implements Initializable {
     @FXML
     private Button backButton;
 
+    private static final String ALL_PRODUCTS = "ALL PRODUCTS";
+    private static final String EXPIRING = "EXPIRING SOON";
+    private static final String EXPIRED = "EXPIRED";
+
     private ProductDAO productDAO = new ProductDAO();
     private ObservableList<Product> productList = FXCollections.observableArrayList();
     private ObservableList<Product> filteredList = FXCollections.observableArrayList();
+    private Map<Integer, Product> productsById = new HashMap<>();
+    private int searchRequest;
+    private Set<Integer> lowStockIds = new HashSet<>();
+    // Crossings from checkouts on other screens and tills arrive on the writing thread.
+    private final Consumer<StockAlert> stockListener = alert -> Platform.runLater(() -> showStockAlert(alert));
+    private int expiryWarningDays = 7;
+    // Ids allowed by the expiry filter; null shows every product.
+    private Set<Integer> expiryIds;
+    private int expiryRequest;
+    private final Consumer<ExpiryAlert> expiryListener = alert -> Platform.runLater(this::loadExpiry);
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -87,6 +127,15 @@ public class ProductListController implements Initializable {
         priceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
         quantityColumn.setCellValueFactory(new PropertyValueFactory<>("quantity"));
         categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
+        expiryColumn.setCellValueFactory(new PropertyValueFactory<>("expiryDate"));
+
+        try {
+            expiryWarningDays = Database.getConfig().getExpiryWarningDays();
+        } catch (SQLException e) {
+            System.err.println("Could not read expiry settings: " + e.getMessage());
+        }
+        expiryFilter.setItems(FXCollections.observableArrayList(ALL_PRODUCTS, EXPIRING, EXPIRED));
+        expiryFilter.setValue(ALL_PRODUCTS);
 
         productTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
@@ -104,78 +153,164 @@ public class ProductListController implements Initializable {
                 super.updateItem(product, empty);
                 if (product == null || empty) {
                     setStyle("");
-                } else if (product.getQuantity() < 10) {
+                } else if (lowStockIds.contains(product.getId())) {
                     setStyle("-fx-background-color: #FED7D7; -fx-font-weight: bold;");
+                } else if (product.getExpiryDate() != null && product.getExpiryDate().isBefore(LocalDate.now())) {
+                    setStyle("-fx-background-color: #FEEBC8;");
                 } else {
                     setStyle("");
                 }
             }
         });
 
+        StockAlerts.subscribe(stockListener);
+        ExpiryAlerts.subscribe(expiryListener);
         loadProducts();
     }
 
     private void loadProducts() {
-        try {
-            productList.clear();
-            productList.addAll(productDAO.getAllProducts());
-            filteredList.clear();
-            filteredList.addAll(productList);
-            productTable.setItems(filteredList);
-            checkLowStock();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        FxAsync.deliver(productDAO.getAllProductsAsync(), products -> {
+            productList.setAll(products);
+            productsById.clear();
+            for (Product product : products) {
+                productsById.put(product.getId(), product);
+            }
+            filterProducts(searchField.getText());
+            loadLowStock();
+            loadExpiry();
+        });
     }
 
+    /**
+     * Shows the products whose name, category or supplier contains the search text, looked up
+     * in the catalog's search index. Keystrokes can outrun lookups; only the latest is shown.
+     */
     private void filterProducts(String searchText) {
+        int request = ++searchRequest;
+        productTable.setItems(filteredList);
         if (searchText == null || searchText.trim().isEmpty()) {
-            filteredList.clear();
-            filteredList.addAll(productList);
-        } else {
-            String lowerCaseFilter = searchText.toLowerCase().trim();
-            filteredList.clear();
-            filteredList.addAll(
-                    productList.stream()
-                            .filter(product ->
-                                    product.getName().toLowerCase().contains(lowerCaseFilter) ||
-                                            product.getCategory().toLowerCase().contains(lowerCaseFilter) ||
-                                            (product.getSupplier() != null && product.getSupplier().toLowerCase().contains(lowerCaseFilter))
-                            )
-                            .collect(java.util.stream.Collectors.toList())
-            );
+            showFiltered(productList);
+            return;
         }
-        productTable.setItems(filteredList);
+
+        FxAsync.deliver(productDAO.searchProductIdsAsync(searchText), ids -> {
+            if (request != searchRequest) {
+                return;
+            }
+            List<Product> matches = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                Product product = productsById.get(id);
+                if (product != null) {
+                    matches.add(product);
+                }
+            }
+            showFiltered(matches);
+        });
+    }
+
+    private void showFiltered(List<Product> products) {
+        if (expiryIds == null) {
+            filteredList.setAll(products);
+            return;
+        }
+        List<Product> shown = new ArrayList<>();
+        for (Product product : products) {
+            if (expiryIds.contains(product.getId())) {
+                shown.add(product);
+            }
+        }
+        filteredList.setAll(shown);
     }
 
-    private void checkLowStock() {
-        long lowStockCount = productList.stream()
-                .filter(p -> p.getQuantity() < 10)
-                .count();
+    @FXML
+    public void handleExpiryFilter(ActionEvent event) {
+        loadExpiry();
+    }
 
-        if (lowStockCount > 0) {
-            lowStockWarning.setText("⚠️" + lowStockCount + " product(s) with low stock!");
+    /**
+     * Expired and expiring-soon counts, and the ids the expiry filter allows, read from the
+     * catalog's expiry queue. Reloaded when the day-boundary sweep reports a change.
+     */
+    private void loadExpiry() {
+        int request = ++expiryRequest;
+        String filter = expiryFilter.getValue();
+        FxAsync.deliver(productDAO.getExpiredProductsAsync().thenCombine(
+                productDAO.getExpiringProductsAsync(expiryWarningDays), List::of), lists -> {
+            if (request != expiryRequest) {
+                return;
+            }
+            List<ExpiryItem> expired = lists.get(0);
+            List<ExpiryItem> expiring = lists.get(1);
+            if (expired.isEmpty() && expiring.isEmpty()) {
+                expiryWarning.setText("");
+            } else {
+                expiryWarning.setText(expired.size() + " expired, " + expiring.size() + " expiring within "
+                        + expiryWarningDays + " day(s)");
+            }
+            if (EXPIRED.equals(filter)) {
+                expiryIds = ids(expired);
+            } else if (EXPIRING.equals(filter)) {
+                expiryIds = ids(expiring);
+            } else {
+                expiryIds = null;
+            }
+            filterProducts(searchField.getText());
+        });
+    }
+
+    private static Set<Integer> ids(List<ExpiryItem> items) {
+        Set<Integer> ids = new HashSet<>();
+        for (ExpiryItem item : items) {
+            ids.add(item.productId());
+        }
+        return ids;
+    }
+
+    /**
+     * Products below their reorder point, kept current by the catalog's low-stock tracker
+     * rather than by scanning the list here.
+     */
+    private void loadLowStock() {
+        FxAsync.deliver(productDAO.getLowStockAsync(), items -> {
+            lowStockIds = new HashSet<>();
+            for (LowStockItem item : items) {
+                lowStockIds.add(item.productId());
+            }
+            showLowStock();
+        });
+    }
+
+    private void showStockAlert(StockAlert alert) {
+        if (alert.type() == StockAlert.Type.LOW) {
+            lowStockIds.add(alert.item().productId());
+        } else {
+            lowStockIds.remove(alert.item().productId());
+        }
+        showLowStock();
+    }
+
+    private void showLowStock() {
+        if (!lowStockIds.isEmpty()) {
+            lowStockWarning.setText("⚠️" + lowStockIds.size() + " product(s) with low stock!");
         } else {
             lowStockWarning.setText("");
         }
+        productTable.refresh();
     }
 
     @FXML
     public void handleAdd(ActionEvent event) {
-        try {
-            Product product = new Product();
-            product.setName(nameField.getText());
-            product.setDescription(descriptionField.getText());
-            product.setPrice(Double.parseDouble(priceField.getText()));
-            product.setQuantity(Integer.parseInt(quantityField.getText()));
-            product.setCategory(categoryField.getText());
-
-            productDAO.addProduct(product);
+        Product product = new Product();
+        product.setName(nameField.getText());
+        product.setDescription(descriptionField.getText());
+        product.setPrice(Double.parseDouble(priceField.getText()));
+        product.setQuantity(Integer.parseInt(quantityField.getText()));
+        product.setCategory(categoryField.getText());
+
+        FxAsync.deliver(productDAO.addProductAsync(product), done -> {
             loadProducts();
             clearFields();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        });
     }
 
     @FXML
@@ -192,17 +327,19 @@ public class ProductListController implements Initializable {
             selected.setPrice(Double.parseDouble(priceField.getText()));
             selected.setQuantity(Integer.parseInt(quantityField.getText()));
             selected.setCategory(categoryField.getText());
+        } catch (NumberFormatException e) {
+            showAlert("Invalid Input", "Please enter valid numbers for price and quantity.");
+            return;
+        }
 
-            productDAO.updateProduct(selected);
+        FxAsync.deliver(productDAO.updateProductAsync(selected), done -> {
             loadProducts();
             clearFields();
             showAlert("Success", "Product updated successfully!");
-        } catch (NumberFormatException e) {
-            showAlert("Invalid Input", "Please enter valid numbers for price and quantity.");
-        } catch (SQLException e) {
-            showAlert("Error", "Failed to update product: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            showAlert("Error", "Failed to update product: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
 
     @FXML
@@ -213,15 +350,14 @@ public class ProductListController implements Initializable {
             return;
         }
 
-        try {
-            productDAO.deleteProduct(selected.getId());
+        FxAsync.deliver(productDAO.deleteProductAsync(selected.getId()), done -> {
             loadProducts();
             clearFields();
             showAlert("Success", "Product deleted successfully!");
-        } catch (SQLException e) {
-            showAlert("Error", "Failed to delete product: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            showAlert("Error", "Failed to delete product: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
 
     private void showAlert(String title, String message) {
@@ -252,6 +388,8 @@ public class ProductListController implements Initializable {
 
     @FXML
     public void handleBack(ActionEvent event) {
+        StockAlerts.unsubscribe(stockListener);
+        ExpiryAlerts.unsubscribe(expiryListener);
         loadView("/fxml/admin_dashboard.fxml");
     }
 
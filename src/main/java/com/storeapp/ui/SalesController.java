@@ -1,11 +1,23 @@
 package com.storeapp.ui;
 
+import com.storeapp.analytics.SalesAggregate;
+import com.storeapp.analytics.SalesColumnStore;
+import com.storeapp.dao.CatalogSnapshot;
+import com.storeapp.dao.CheckoutResult;
+import com.storeapp.dao.CheckoutService;
+import com.storeapp.dao.DaoExecutor;
 import com.storeapp.dao.ProductDAO;
+import com.storeapp.dao.SaleCursor;
 import com.storeapp.dao.SaleDAO;
+import com.storeapp.dao.SaleFilter;
+import com.storeapp.dao.SalePage;
+import com.storeapp.dao.UserDAO;
 import com.storeapp.model.Product;
 import com.storeapp.model.Sale;
+import com.storeapp.model.User;
 import com.storeapp.util.AlertUtil;
 import com.storeapp.util.ExportUtil;
+import com.storeapp.util.FxAsync;
 import com.storeapp.util.SceneUtil;
 import com.storeapp.util.UserSession;
 import javafx.collections.FXCollections;
@@ -16,12 +28,18 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.FileChooser;
+import javafx.util.StringConverter;
 
 import java.io.File;
 import java.net.URL;
-import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class SalesController implements Initializable {
 
@@ -53,7 +71,7 @@ public class SalesController implements Initializable {
     private ComboBox<Product> productComboBox;
 
     @FXML
-    private ComboBox<String> filterProductCombo;
+    private ComboBox<Product> filterProductCombo;
 
     @FXML
     private DatePicker fromDatePicker;
@@ -76,10 +94,40 @@ public class SalesController implements Initializable {
     @FXML
     private Button exportPdfButton;
 
+    @FXML
+    private Button previousPageButton;
+
+    @FXML
+    private Button nextPageButton;
+
+    @FXML
+    private Label pageInfoLabel;
+
+    @FXML
+    private Label filterSummaryLabel;
+
+    @FXML
+    private Label filterBreakdownLabel;
+
+    private static final int PAGE_SIZE = 100;
+    private static final int BREAKDOWN_ENTRIES = 5;
+    // Stands for "no product filter" in the filter combo.
+    private static final Product ALL_PRODUCTS = new Product();
+
     private SaleDAO saleDAO = new SaleDAO();
     private ProductDAO productDAO = new ProductDAO();
+    private CheckoutService checkoutService = new CheckoutService();
+    private UserDAO userDAO = new UserDAO();
+    private Map<Integer, String> usernames = new HashMap<>();
+    private Map<Integer, String> productNames = new HashMap<>();
+    private FilterBreakdown shownBreakdown;
     private ObservableList<Sale> salesList = FXCollections.observableArrayList();
-    private ObservableList<Sale> filteredSalesList = FXCollections.observableArrayList();
+    private SaleFilter currentFilter = SaleFilter.ALL;
+    private SalePage currentPage;
+    private int pageNumber = 1;
+    private long shownCatalogVersion = -1;
+    // Bumped per page request so a slow, superseded response cannot overwrite a newer page.
+    private int pageRequest;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -124,157 +172,290 @@ public class SalesController implements Initializable {
             }
         });
 
+        FxAsync.deliver(userDAO.getAllUsersAsync(), users -> {
+            for (User user : users) {
+                usernames.put(user.getId(), user.getUsername());
+            }
+            showBreakdown();
+        });
         loadSales();
-        loadProducts();
-        initializeFilters();
+        // One catalog read serves both the sale form and the filters.
+        FxAsync.deliver(productDAO.getCatalogSnapshotAsync(), catalog -> {
+            showProducts(catalog);
+            initializeFilters(catalog.products());
+            showBreakdown();
+        });
+        showFilterSummary();
     }
 
-    private void initializeFilters() {
-        try {
-            ObservableList<String> productNames = FXCollections.observableArrayList();
-            productNames.add("All Products");
-            for (Product p : productDAO.getAllProducts()) {
-                productNames.add(p.getName());
+    /**
+     * Names may repeat across suppliers, so the filter combo holds the products themselves and
+     * labels each with its supplier and id.
+     */
+    private void initializeFilters(List<Product> products) {
+        ObservableList<Product> choices = FXCollections.observableArrayList();
+        choices.add(ALL_PRODUCTS);
+        choices.addAll(products);
+        filterProductCombo.setConverter(new StringConverter<Product>() {
+            @Override
+            public String toString(Product product) {
+                if (product == null || product == ALL_PRODUCTS) {
+                    return "All Products";
+                }
+                String supplier = product.getSupplier() != null ? " - " + product.getSupplier() : "";
+                return product.getName() + supplier + " (#" + product.getId() + ")";
             }
-            filterProductCombo.setItems(productNames);
-            filterProductCombo.setValue("All Products");
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+
+            @Override
+            public Product fromString(String text) {
+                return null;
+            }
+        });
+        filterProductCombo.setItems(choices);
+        filterProductCombo.setValue(ALL_PRODUCTS);
     }
 
     private void loadSales() {
-        try {
-            salesList.clear();
-            salesList.addAll(saleDAO.getAllSales());
-            filteredSalesList.clear();
-            filteredSalesList.addAll(salesList);
-            salesTable.setItems(filteredSalesList);
-        } catch (SQLException e) {
-            e.printStackTrace();
+        requestPage(saleDAO.getFirstPageAsync(currentFilter, PAGE_SIZE), 1);
+    }
+
+    private void reloadCurrentPage() {
+        if (currentPage == null || currentPage.isEmpty()) {
+            loadSales();
+            return;
+        }
+        SaleFilter filter = currentFilter;
+        SaleCursor first = currentPage.firstCursor();
+        CompletableFuture<SalePage> reload = saleDAO.getPageStartingAtAsync(filter, first, PAGE_SIZE)
+                .thenCompose(page -> page.isEmpty() && page.hasPrevious()
+                        ? saleDAO.getPreviousPageAsync(filter, first, PAGE_SIZE)
+                        : CompletableFuture.completedFuture(page));
+        requestPage(reload, pageNumber);
+    }
+
+    private void requestPage(CompletableFuture<SalePage> request, int targetPageNumber) {
+        int requestId = ++pageRequest;
+        previousPageButton.setDisable(true);
+        nextPageButton.setDisable(true);
+        FxAsync.deliver(request, page -> {
+            if (requestId != pageRequest) {
+                return;
+            }
+            pageNumber = targetPageNumber;
+            showPage(page);
+        }, error -> {
+            if (requestId == pageRequest && currentPage != null) {
+                previousPageButton.setDisable(!currentPage.hasPrevious());
+                nextPageButton.setDisable(!currentPage.hasNext());
+            }
+            error.printStackTrace();
+        });
+    }
+
+    private void showPage(SalePage page) {
+        currentPage = page;
+        if (!page.hasPrevious()) {
+            pageNumber = 1;
         }
+        salesList.setAll(page.sales());
+        salesTable.setItems(salesList);
+        previousPageButton.setDisable(!page.hasPrevious());
+        nextPageButton.setDisable(!page.hasNext());
+        pageInfoLabel.setText("PAGE " + pageNumber + " (" + page.sales().size() + " SALES)");
     }
 
     @FXML
-    public void handleFilter(ActionEvent event) {
-        filteredSalesList.clear();
+    public void handleNextPage(ActionEvent event) {
+        if (currentPage == null || !currentPage.hasNext()) {
+            return;
+        }
+        requestPage(saleDAO.getNextPageAsync(currentFilter, currentPage.lastCursor(), PAGE_SIZE), pageNumber + 1);
+    }
+
+    @FXML
+    public void handlePreviousPage(ActionEvent event) {
+        if (currentPage == null || !currentPage.hasPrevious()) {
+            return;
+        }
+        requestPage(saleDAO.getPreviousPageAsync(currentFilter, currentPage.firstCursor(), PAGE_SIZE),
+                Math.max(1, pageNumber - 1));
+    }
 
+    @FXML
+    public void handleFilter(ActionEvent event) {
         java.time.LocalDate fromDate = fromDatePicker.getValue();
         java.time.LocalDate toDate = toDatePicker.getValue();
-        String selectedProduct = filterProductCombo.getValue();
-
-        filteredSalesList.addAll(
-                salesList.stream()
-                        .filter(sale -> {
-                            if (fromDate != null && sale.getSaleDate().toLocalDate().isBefore(fromDate)) {
-                                return false;
-                            }
-                            if (toDate != null && sale.getSaleDate().toLocalDate().isAfter(toDate)) {
-                                return false;
-                            }
-                            if (selectedProduct != null && !selectedProduct.equals("All Products") && !sale.getProductName().equals(selectedProduct)) {
-                                return false;
-                            }
-                            return true;
-                        })
-                        .collect(java.util.stream.Collectors.toList())
-        );
-
-        salesTable.setItems(filteredSalesList);
+        Product selectedProduct = filterProductCombo.getValue();
+
+        Integer productId = null;
+        if (selectedProduct != null && selectedProduct != ALL_PRODUCTS) {
+            productId = selectedProduct.getId();
+        }
+
+        currentFilter = SaleFilter.ALL
+                .withDateRange(fromDate != null ? fromDate.atStartOfDay() : null,
+                        toDate != null ? toDate.atTime(LocalTime.MAX) : null)
+                .withProduct(productId);
+        loadSales();
+        showFilterSummary();
     }
 
     @FXML
     public void handleClearFilter(ActionEvent event) {
         fromDatePicker.setValue(null);
         toDatePicker.setValue(null);
-        filterProductCombo.setValue("All Products");
-        filteredSalesList.clear();
-        filteredSalesList.addAll(salesList);
-        salesTable.setItems(filteredSalesList);
+        filterProductCombo.setValue(ALL_PRODUCTS);
+        currentFilter = SaleFilter.ALL;
+        loadSales();
+        showFilterSummary();
+    }
+
+    /**
+     * Totals for the whole filter, not just the visible page, and its best cashiers,
+     * categories and products, from the in-memory column store. The four scans run in
+     * parallel partitions on a virtual thread, off the FX thread.
+     */
+    private void showFilterSummary() {
+        SaleFilter filter = currentFilter;
+        CompletableFuture<FilterBreakdown> breakdown = SalesColumnStore.shared().thenCompose(columns ->
+                DaoExecutor.supply(() -> new FilterBreakdown(columns.aggregate(filter), columns.salesByUser(filter),
+                        columns.unitsByCategory(filter), columns.unitsByProduct(filter))));
+        FxAsync.deliver(breakdown, result -> {
+            if (filter != currentFilter) {
+                return;
+            }
+            SalesAggregate summary = result.totals();
+            filterSummaryLabel.setText(String.format("%d SALES · %d UNITS · $%.2f",
+                    summary.count(), summary.units(), summary.revenue()));
+            shownBreakdown = result;
+            showBreakdown();
+        });
+    }
+
+    // Also called when user or product names arrive after the scans.
+    private void showBreakdown() {
+        FilterBreakdown breakdown = shownBreakdown;
+        if (breakdown == null || breakdown.totals().count() == 0) {
+            filterBreakdownLabel.setText("");
+            return;
+        }
+        List<String> cashiers = breakdown.byUser().entrySet().stream()
+                .limit(BREAKDOWN_ENTRIES)
+                .map(e -> String.format("%s $%.2f (%d)", usernames.getOrDefault(e.getKey(), "User #" + e.getKey()),
+                        e.getValue().revenue(), e.getValue().count()))
+                .toList();
+        List<String> categories = breakdown.byCategory().entrySet().stream()
+                .limit(BREAKDOWN_ENTRIES)
+                .map(e -> e.getKey() + " " + e.getValue())
+                .toList();
+        List<String> products = breakdown.byProduct().entrySet().stream()
+                .limit(BREAKDOWN_ENTRIES)
+                .map(e -> productNames.getOrDefault(e.getKey(), "Product #" + e.getKey()) + " " + e.getValue())
+                .toList();
+        filterBreakdownLabel.setText("CASHIERS: " + String.join(" · ", cashiers)
+                + "\nTOP CATEGORIES (UNITS): " + String.join(" · ", categories)
+                + "\nTOP PRODUCTS (UNITS): " + String.join(" · ", products));
+    }
+
+    private record FilterBreakdown(SalesAggregate totals, Map<Integer, SalesAggregate> byUser,
+                                   Map<String, Long> byCategory, Map<Integer, Long> byProduct) {
     }
 
     private void loadProducts() {
-        try {
-            ObservableList<Product> products = FXCollections.observableArrayList(productDAO.getAllProducts());
-            productComboBox.setItems(products);
-
-            productComboBox.setCellFactory(param -> new ListCell<Product>() {
-                @Override
-                protected void updateItem(Product item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                    } else {
-                        setText(item.getName() + " ($" + String.format("%.2f", item.getPrice()) + ")");
-                    }
+        FxAsync.deliver(productDAO.getCatalogSnapshotAsync(), catalog -> {
+            if (catalog.version() != shownCatalogVersion) {
+                showProducts(catalog);
+            }
+        });
+    }
+
+    private void showProducts(CatalogSnapshot catalog) {
+        shownCatalogVersion = catalog.version();
+        productNames = new HashMap<>();
+        for (Product product : catalog.products()) {
+            productNames.put(product.getId(), product.getName());
+        }
+        productComboBox.setItems(FXCollections.observableArrayList(catalog.products()));
+
+        productComboBox.setCellFactory(param -> new ListCell<Product>() {
+            @Override
+            protected void updateItem(Product item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(item.getName() + " ($" + String.format("%.2f", item.getPrice()) + ")");
                 }
-            });
+            }
+        });
 
-            productComboBox.setButtonCell(new ListCell<Product>() {
-                @Override
-                protected void updateItem(Product item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                    } else {
-                        setText(item.getName() + " ($" + String.format("%.2f", item.getPrice()) + ")");
-                    }
+        productComboBox.setButtonCell(new ListCell<Product>() {
+            @Override
+            protected void updateItem(Product item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(item.getName() + " ($" + String.format("%.2f", item.getPrice()) + ")");
                 }
-            });
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            }
+        });
     }
 
     @FXML
     public void handleAddSale(ActionEvent event) {
         Product selectedProduct = productComboBox.getSelectionModel().getSelectedItem();
-        if (selectedProduct != null && !quantityField.getText().isEmpty()) {
-            try {
-                int quantity = Integer.parseInt(quantityField.getText());
+        if (selectedProduct == null || quantityField.getText().isEmpty()) {
+            showAlert("Missing Information", "Please select a product and enter quantity.");
+            return;
+        }
 
-                if (quantity <= 0) {
-                    showAlert("Invalid Quantity", "Quantity must be greater than 0.");
-                    return;
-                }
+        int quantity;
+        try {
+            quantity = Integer.parseInt(quantityField.getText());
+        } catch (NumberFormatException e) {
+            showAlert("Invalid Input", "Please enter a valid number for quantity.");
+            return;
+        }
+        if (quantity <= 0) {
+            showAlert("Invalid Quantity", "Quantity must be greater than 0.");
+            return;
+        }
 
-                if (quantity > selectedProduct.getQuantity()) {
+        addSaleButton.setDisable(true);
+        CompletableFuture<CheckoutResult> checkout = checkoutService.checkoutAsync(selectedProduct.getId(), quantity,
+                UserSession.getInstance().getCurrentUser().getId());
+        FxAsync.deliver(checkout, result -> {
+            addSaleButton.setDisable(false);
+            switch (result.status()) {
+                case INSUFFICIENT_STOCK -> {
                     showAlert("Insufficient Stock",
                             "Cannot sell " + quantity + " units. Only " +
-                                    selectedProduct.getQuantity() + " units available in stock.");
+                                    result.availableStock() + " units available in stock.");
+                    loadProducts();
                     return;
                 }
-
-                double totalPrice = selectedProduct.getPrice() * quantity;
-
-                Sale sale = new Sale();
-                sale.setProductId(selectedProduct.getId());
-                sale.setProductName(selectedProduct.getName());
-                sale.setQuantity(quantity);
-                sale.setTotalPrice(totalPrice);
-                sale.setSaleDate(LocalDateTime.now());
-                sale.setUserId(UserSession.getInstance().getCurrentUser().getId());
-
-                saleDAO.addSale(sale);
-
-                selectedProduct.setQuantity(selectedProduct.getQuantity() - quantity);
-                productDAO.updateProduct(selectedProduct);
-
-                loadSales();
-                loadProducts();
-                quantityField.clear();
-                productComboBox.getSelectionModel().clearSelection();
-
-                showAlert("Success", "Sale added successfully!");
-            } catch (NumberFormatException e) {
-                showAlert("Invalid Input", "Please enter a valid number for quantity.");
-            } catch (SQLException e) {
-                showAlert("Database Error", "Error adding sale: " + e.getMessage());
-                e.printStackTrace();
+                case PRODUCT_NOT_FOUND -> {
+                    showAlert("Product Not Found", "This product no longer exists.");
+                    loadProducts();
+                    return;
+                }
+                default -> {
+                }
             }
-        } else {
-            showAlert("Missing Information", "Please select a product and enter quantity.");
-        }
+
+            showFilterSummary();
+            loadSales();
+            loadProducts();
+            quantityField.clear();
+            productComboBox.getSelectionModel().clearSelection();
+
+            showAlert("Success", "Sale added successfully!");
+        }, error -> {
+            addSaleButton.setDisable(false);
+            showAlert("Database Error", "Error adding sale: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
 
     private void handleDeleteSale(Sale sale) {
@@ -285,22 +466,19 @@ public class SalesController implements Initializable {
 
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    Product product = productDAO.getProductById(sale.getProductId());
-                    if (product != null) {
-                        product.setQuantity(product.getQuantity() + sale.getQuantity());
-                        productDAO.updateProduct(product);
-                    }
-
-                    saleDAO.deleteSale(sale.getId());
-
-                    loadSales();
+                FxAsync.deliver(checkoutService.reverseSaleAsync(sale.getId()), result -> {
+                    showFilterSummary();
+                    reloadCurrentPage();
                     loadProducts();
-                    showAlert("Success", "Sale deleted and stock restored.");
-                } catch (SQLException e) {
-                    showAlert("Error", "Failed to delete sale: " + e.getMessage());
-                    e.printStackTrace();
-                }
+                    if (result.isSuccess()) {
+                        showAlert("Success", "Sale deleted and stock restored.");
+                    } else {
+                        showAlert("Not Found", "This sale has already been deleted.");
+                    }
+                }, error -> {
+                    showAlert("Error", "Failed to delete sale: " + error.getMessage());
+                    error.printStackTrace();
+                });
             }
         });
     }
@@ -320,16 +498,24 @@ public class SalesController implements Initializable {
 
         File file = fileChooser.showSaveDialog(exportCsvButton.getScene().getWindow());
         if (file != null) {
-            try {
-                ExportUtil.exportToCSV(filteredSalesList, file);
+            SaleFilter filter = currentFilter;
+            exportCsvButton.setDisable(true);
+            CompletableFuture<Integer> export = DaoExecutor.supply(() -> {
+                try (Stream<Sale> sales = saleDAO.streamSales(filter)) {
+                    return ExportUtil.exportToCSV(sales, file);
+                }
+            });
+            FxAsync.deliver(export, exported -> {
+                exportCsvButton.setDisable(false);
                 showAlert("Export Successful", 
                         "Sales report exported to CSV successfully!\n" +
-                        "Exported " + filteredSalesList.size() + " sales records.\n\n" +
+                        "Exported " + exported + " sales records.\n\n" +
                         "File saved to: " + file.getAbsolutePath());
-            } catch (Exception e) {
-                showAlert("Export Failed", "Failed to export CSV: " + e.getMessage());
-                e.printStackTrace();
-            }
+            }, error -> {
+                exportCsvButton.setDisable(false);
+                showAlert("Export Failed", "Failed to export CSV: " + error.getMessage());
+                error.printStackTrace();
+            });
         }
     }
 
@@ -344,16 +530,24 @@ public class SalesController implements Initializable {
 
         File file = fileChooser.showSaveDialog(exportPdfButton.getScene().getWindow());
         if (file != null) {
-            try {
-                ExportUtil.exportToPDF(filteredSalesList, file);
+            SaleFilter filter = currentFilter;
+            exportPdfButton.setDisable(true);
+            CompletableFuture<Integer> export = DaoExecutor.supply(() -> {
+                try (Stream<Sale> sales = saleDAO.streamSales(filter)) {
+                    return ExportUtil.exportToPDF(sales, file);
+                }
+            });
+            FxAsync.deliver(export, exported -> {
+                exportPdfButton.setDisable(false);
                 showAlert("Export Successful", 
                         "Sales report exported to PDF successfully!\n" +
-                        "Exported " + filteredSalesList.size() + " sales records.\n\n" +
+                        "Exported " + exported + " sales records.\n\n" +
                         "File saved to: " + file.getAbsolutePath());
-            } catch (Exception e) {
-                showAlert("Export Failed", "Failed to export PDF: " + e.getMessage());
-                e.printStackTrace();
-            }
+            }, error -> {
+                exportPdfButton.setDisable(false);
+                showAlert("Export Failed", "Failed to export PDF: " + error.getMessage());
+                error.printStackTrace();
+            });
         }
     }
 
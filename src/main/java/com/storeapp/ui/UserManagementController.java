@@ -3,6 +3,7 @@ package com.storeapp.ui;
 import com.storeapp.dao.UserDAO;
 import com.storeapp.model.User;
 import com.storeapp.util.AlertUtil;
+import com.storeapp.util.FxAsync;
 import com.storeapp.util.SceneUtil;
 import com.storeapp.util.UserSession;
 import javafx.collections.FXCollections;
@@ -15,8 +16,8 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 
 import java.net.URL;
-import java.sql.SQLException;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 public class UserManagementController implements Initializable {
 
@@ -100,14 +101,13 @@ public class UserManagementController implements Initializable {
     }
 
     private void loadUsers() {
-        try {
-            usersList.clear();
-            usersList.addAll(userDAO.getAllUsers());
+        FxAsync.deliver(userDAO.getAllUsersAsync(), users -> {
+            usersList.setAll(users);
             usersTable.setItems(usersList);
-        } catch (SQLException e) {
-            showAlert("Database Error", "Error loading users: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            showAlert("Database Error", "Error loading users: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
 
     @FXML
@@ -121,28 +121,32 @@ public class UserManagementController implements Initializable {
             return;
         }
 
-        try {
-            if (selectedUser == null) {
-                userDAO.addUser(new User(0, username, password, role));
-                showAlert("Success", "User added successfully!");
-            } else {
-                selectedUser.setUsername(username);
-                if (!password.isEmpty()) {
-                    selectedUser.setPassword(password);
-                }
-                selectedUser.setRole(role);
-                userDAO.updateUser(selectedUser);
-                showAlert("Success", "User updated successfully!");
-                selectedUser = null;
-                addUserButton.setText("Add User");
+        CompletableFuture<Void> save;
+        String message;
+        if (selectedUser == null) {
+            save = userDAO.addUserAsync(new User(0, username, password, role));
+            message = "User added successfully!";
+        } else {
+            selectedUser.setUsername(username);
+            if (!password.isEmpty()) {
+                selectedUser.setPassword(password);
             }
+            selectedUser.setRole(role);
+            save = userDAO.updateUserAsync(selectedUser);
+            message = "User updated successfully!";
+        }
 
+        addUserButton.setDisable(true);
+        FxAsync.deliver(save, done -> {
+            addUserButton.setDisable(false);
+            showAlert("Success", message);
             loadUsers();
             handleClear(null);
-        } catch (SQLException e) {
-            showAlert("Database Error", "Error saving user: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            addUserButton.setDisable(false);
+            showAlert("Database Error", "Error saving user: " + error.getMessage());
+            error.printStackTrace();
+        });
     }
 
     private void handleEditUser(User user) {
@@ -166,14 +170,13 @@ public class UserManagementController implements Initializable {
 
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    userDAO.deleteUser(user.getId());
+                FxAsync.deliver(userDAO.deleteUserAsync(user.getId()), done -> {
                     loadUsers();
                     showAlert("Success", "User deleted successfully!");
-                } catch (SQLException e) {
-                    showAlert("Database Error", "Error deleting user: " + e.getMessage());
-                    e.printStackTrace();
-                }
+                }, error -> {
+                    showAlert("Database Error", "Error deleting user: " + error.getMessage());
+                    error.printStackTrace();
+                });
             }
         });
     }
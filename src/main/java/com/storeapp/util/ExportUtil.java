@@ -10,26 +10,36 @@ import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
 import com.storeapp.model.Sale;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 public final class ExportUtil {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+    private static final int PDF_FLUSH_ROWS = 500;
 
     private ExportUtil() {}
 
-
-    public static void exportToCSV(List<Sale> sales, File file) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
+    /**
+     * Writes rows as they arrive, so a stream from {@code SaleDAO.streamSales} is exported
+     * in constant memory. Returns the number of rows written.
+     */
+    public static int exportToCSV(Stream<Sale> sales, File file) throws IOException {
+        int count = 0;
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
             // Write CSV header
             writer.append("Sale ID,Product ID,Product Name,Category,Quantity,Total Price,Sale Date\n");
 
             // Write data rows
-            for (Sale sale : sales) {
+            Iterator<Sale> it = sales.iterator();
+            while (it.hasNext()) {
+                Sale sale = it.next();
                 writer.append(String.valueOf(sale.getId())).append(",");
                 writer.append(String.valueOf(sale.getProductId())).append(",");
                 writer.append(escapeCsv(sale.getProductName())).append(",");
@@ -37,13 +47,19 @@ public final class ExportUtil {
                 writer.append(String.valueOf(sale.getQuantity())).append(",");
                 writer.append(String.format("%.2f", sale.getTotalPrice())).append(",");
                 writer.append(sale.getSaleDate().format(DATE_FORMATTER)).append("\n");
+                count++;
             }
 
             writer.flush();
         }
+        return count;
     }
 
-    public static void exportToPDF(List<Sale> sales, File file) throws IOException {
+    /**
+     * Like {@link #exportToCSV(Stream, File)}, the table is written in large-table mode and
+     * flushed every {@value #PDF_FLUSH_ROWS} rows instead of being built in memory first.
+     */
+    public static int exportToPDF(Stream<Sale> sales, File file) throws IOException {
         try (PdfWriter writer = new PdfWriter(file);
              PdfDocument pdf = new PdfDocument(writer);
              Document document = new Document(pdf)) {
@@ -64,7 +80,7 @@ public final class ExportUtil {
 
             // Create table with 7 columns
             float[] columnWidths = {1, 1.5f, 2.5f, 2, 1, 1.5f, 2.5f};
-            Table table = new Table(UnitValue.createPercentArray(columnWidths))
+            Table table = new Table(UnitValue.createPercentArray(columnWidths), true)
                     .useAllAvailableWidth();
 
             // Add table headers
@@ -76,11 +92,16 @@ public final class ExportUtil {
                         .setBackgroundColor(com.itextpdf.kernel.colors.ColorConstants.LIGHT_GRAY));
             }
 
+            document.add(table);
+
             // Add data rows
             double totalRevenue = 0.0;
             int totalQuantity = 0;
+            int count = 0;
 
-            for (Sale sale : sales) {
+            Iterator<Sale> it = sales.iterator();
+            while (it.hasNext()) {
+                Sale sale = it.next();
                 table.addCell(new Cell().add(new Paragraph(String.valueOf(sale.getId()))));
                 table.addCell(new Cell().add(new Paragraph(String.valueOf(sale.getProductId()))));
                 table.addCell(new Cell().add(new Paragraph(sale.getProductName() != null ? sale.getProductName() : "N/A")));
@@ -91,9 +112,12 @@ public final class ExportUtil {
 
                 totalRevenue += sale.getTotalPrice();
                 totalQuantity += sale.getQuantity();
+                if (++count % PDF_FLUSH_ROWS == 0) {
+                    table.flush();
+                }
             }
 
-            document.add(table);
+            table.complete();
 
             // Add summary
             Paragraph summary = new Paragraph("\n\nSummary:")
@@ -104,9 +128,10 @@ public final class ExportUtil {
 
             Paragraph stats = new Paragraph(
                     String.format("Total Sales: %d\nTotal Items Sold: %d\nTotal Revenue: $%.2f",
-                            sales.size(), totalQuantity, totalRevenue))
+                            count, totalQuantity, totalRevenue))
                     .setFontSize(12);
             document.add(stats);
+            return count;
         }
     }
 
@@ -0,0 +1,57 @@
+package com.storeapp.util;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Hands the outcome of a background future back to the JavaFX Application Thread, the only
+ * thread allowed to touch controls.
+ */
+public final class FxAsync {
+
+    private static final Executor FX_THREAD = Platform::runLater;
+
+    private FxAsync() {}
+
+    /**
+     * Calls {@code onSuccess} with the result, or {@code onFailure} with the unwrapped cause,
+     * on the FX thread once {@code future} completes.
+     */
+    public static <T> CompletableFuture<Void> deliver(CompletableFuture<T> future,
+                                                      Consumer<? super T> onSuccess,
+                                                      Consumer<Throwable> onFailure) {
+        return future.handleAsync((result, error) -> {
+            try {
+                if (error == null) {
+                    onSuccess.accept(result);
+                } else {
+                    onFailure.accept(unwrap(error));
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            return null;
+        }, FX_THREAD);
+    }
+
+    /**
+     * Like {@link #deliver(CompletableFuture, Consumer, Consumer)}, printing failures.
+     */
+    public static <T> CompletableFuture<Void> deliver(CompletableFuture<T> future, Consumer<? super T> onSuccess) {
+        return deliver(future, onSuccess, Throwable::printStackTrace);
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -0,0 +1,12 @@
+-- Date-range scans (getSalesByDateRange, newest-first listing) read every sales column
+-- straight from this index instead of visiting the table.
+CREATE INDEX IF NOT EXISTS idx_sales_date_cover
+    ON sales (sale_date, product_id, quantity, total_price, user_id);
+
+-- Per-product history and the sales -> products join, newest first.
+CREATE INDEX IF NOT EXISTS idx_sales_product_date
+    ON sales (product_id, sale_date, quantity, total_price);
+
+-- Per-employee history.
+CREATE INDEX IF NOT EXISTS idx_sales_user_date
+    ON sales (user_id, sale_date);
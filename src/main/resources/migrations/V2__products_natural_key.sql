@@ -0,0 +1,3 @@
+-- Catalog imports match existing products on (name, supplier).
+CREATE INDEX IF NOT EXISTS idx_products_name_supplier
+    ON products (name, supplier);
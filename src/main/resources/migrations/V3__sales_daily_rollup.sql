@@ -0,0 +1,27 @@
+-- Per-day, per-product sales totals, kept current by the DAO in the same transaction as
+-- every sale insert or delete. Day is the local calendar date as yyyy-MM-dd.
+CREATE TABLE IF NOT EXISTS sales_daily_rollup (
+    day TEXT NOT NULL,
+    product_id INTEGER NOT NULL,
+    sale_count INTEGER NOT NULL DEFAULT 0,
+    units INTEGER NOT NULL DEFAULT 0,
+    revenue REAL NOT NULL DEFAULT 0,
+    cost REAL NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, product_id)
+) WITHOUT ROWID;
+
+CREATE INDEX IF NOT EXISTS idx_sales_daily_rollup_product
+    ON sales_daily_rollup (product_id, day);
+
+-- Backfill existing history. Cost uses each product's current cost price. The JDBC driver
+-- stores sale_date as epoch milliseconds; rows that fell back to the column default hold
+-- CURRENT_TIMESTAMP text in UTC.
+INSERT INTO sales_daily_rollup (day, product_id, sale_count, units, revenue, cost)
+SELECT CASE WHEN typeof(s.sale_date) = 'integer'
+            THEN date(s.sale_date / 1000, 'unixepoch', 'localtime')
+            ELSE date(s.sale_date, 'localtime') END,
+       s.product_id,
+       COUNT(*), SUM(s.quantity), SUM(s.total_price), SUM(s.quantity * COALESCE(p.cost_price, 0))
+FROM sales s
+LEFT JOIN products p ON p.id = s.product_id
+GROUP BY 1, 2;
@@ -0,0 +1,33 @@
+-- Cost per unit at the time of sale, so margins stay correct after cost prices change.
+-- Existing sales take their product's current cost, the best figure available.
+ALTER TABLE sales ADD COLUMN unit_cost REAL NOT NULL DEFAULT 0;
+
+UPDATE sales
+SET unit_cost = COALESCE((SELECT p.cost_price FROM products p WHERE p.id = sales.product_id), 0);
+
+-- The rollup gains the employee, so margin by employee is also read from it. Rebuilt from
+-- sales, with cost taken from the recorded unit costs.
+DROP TABLE IF EXISTS sales_daily_rollup;
+
+CREATE TABLE sales_daily_rollup (
+    day TEXT NOT NULL,
+    product_id INTEGER NOT NULL,
+    user_id INTEGER NOT NULL,
+    sale_count INTEGER NOT NULL DEFAULT 0,
+    units INTEGER NOT NULL DEFAULT 0,
+    revenue REAL NOT NULL DEFAULT 0,
+    cost REAL NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, product_id, user_id)
+) WITHOUT ROWID;
+
+CREATE INDEX idx_sales_daily_rollup_product
+    ON sales_daily_rollup (product_id, day);
+
+INSERT INTO sales_daily_rollup (day, product_id, user_id, sale_count, units, revenue, cost)
+SELECT CASE WHEN typeof(sale_date) = 'integer'
+            THEN date(sale_date / 1000, 'unixepoch', 'localtime')
+            ELSE date(sale_date, 'localtime') END,
+       product_id, user_id,
+       COUNT(*), SUM(quantity), SUM(total_price), SUM(quantity * unit_cost)
+FROM sales
+GROUP BY 1, 2, 3;
@@ -0,0 +1,36 @@
+-- Full-text index over the catalog for ProductDAO.search. An external-content FTS5 table keeps
+-- only the index and reads the text back from products; the triggers below keep it in step.
+-- Prefix indexes make the 2- and 3-character prefix queries typed into a search box cheap.
+CREATE VIRTUAL TABLE IF NOT EXISTS products_fts USING fts5(
+    name,
+    description,
+    category,
+    supplier,
+    content = 'products',
+    content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+CREATE TRIGGER IF NOT EXISTS products_fts_insert AFTER INSERT ON products BEGIN
+    INSERT INTO products_fts (rowid, name, description, category, supplier)
+    VALUES (new.id, new.name, new.description, new.category, new.supplier);
+END;
+
+CREATE TRIGGER IF NOT EXISTS products_fts_delete AFTER DELETE ON products BEGIN
+    INSERT INTO products_fts (products_fts, rowid, name, description, category, supplier)
+    VALUES ('delete', old.id, old.name, old.description, old.category, old.supplier);
+END;
+
+-- Checkouts only change quantity, and imports often rewrite identical text; neither reindexes.
+CREATE TRIGGER IF NOT EXISTS products_fts_update AFTER UPDATE OF name, description, category, supplier ON products
+WHEN old.name IS NOT new.name OR old.description IS NOT new.description
+    OR old.category IS NOT new.category OR old.supplier IS NOT new.supplier
+BEGIN
+    INSERT INTO products_fts (products_fts, rowid, name, description, category, supplier)
+    VALUES ('delete', old.id, old.name, old.description, old.category, old.supplier);
+    INSERT INTO products_fts (rowid, name, description, category, supplier)
+    VALUES (new.id, new.name, new.description, new.category, new.supplier);
+END;
+
+INSERT INTO products_fts (products_fts) VALUES ('rebuild');
@@ -0,0 +1,3 @@
+-- Per-product reorder point for low-stock alerts; NULL falls back to the category's or the
+-- default from app.properties.
+ALTER TABLE products ADD COLUMN reorder_point INTEGER CHECK (reorder_point >= 0);
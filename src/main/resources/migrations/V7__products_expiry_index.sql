@@ -0,0 +1,5 @@
+-- Expired and expiring-soon lookups (ProductDAO.queryExpiring). Most products never
+-- expire, so only dated rows are indexed.
+CREATE INDEX IF NOT EXISTS idx_products_expiry
+    ON products (expiry_date, id)
+    WHERE expiry_date IS NOT NULL;